@@ -2,6 +2,7 @@ import {Mixer} from "./objects/Mixer";
 import {Channel} from "./objects/Channel";
 import {Sound} from "./objects/Sound";
 import * as PluginChannel from '../../helpers/protocol/PluginChannel'
+import {BINARY_REVISION} from "../socket/BinaryDecoder";
 
 export class MediaManager {
 
@@ -27,7 +28,8 @@ export class MediaManager {
 
                 // do whatever your ugly heart desires
                 oaInstance.socketModule.send(PluginChannel.VOLUME_CHANGED, {
-                    "volume": this.masterVolume
+                    "volume": this.masterVolume,
+                    "binaryRevision": oaInstance.socketModule.supportsBinary ? BINARY_REVISION : 0
                 });
             }
         }, 300)
@@ -0,0 +1,147 @@
+// revision of the binary protocol this client understands, see BinaryPacketEncoder in the plugin
+export const BINARY_REVISION = 2;
+
+const PLAYER_LOCATION = 1;
+const SPEAKER_CREATE = 2;
+const SPEAKER_DESTROY = 3;
+const PEER_LOCATIONS = 4;
+const PLAYER_MOTION = 5;
+
+// same order as the SpeakerType enum in the plugin
+const SPEAKER_TYPES = ["SPEAKER_2D", "SPEAKER_3D"];
+
+// coordinates are fixed point numbers with one decimal
+const FIXED_POINT_SCALE = 10;
+
+export class BinaryDecoder {
+
+    constructor() {
+        this.strings = [];
+        this.textDecoder = new TextDecoder("utf-8");
+    }
+
+    // the plugin starts with a new string table for every session
+    reset() {
+        this.strings = [];
+    }
+
+    // turns a binary packet back into the {type, payload} the json protocol would have sent
+    decode(base64) {
+        const raw = atob(base64);
+        this.bytes = new Uint8Array(raw.length);
+        for (let i = 0; i < raw.length; i++) this.bytes[i] = raw.charCodeAt(i);
+        this.offset = 0;
+
+        const kind = this.bytes[this.offset++];
+        switch (kind) {
+            case PLAYER_LOCATION:
+                return {
+                    type: "ClientPlayerLocationPayload",
+                    payload: {
+                        x: this.readFixed(),
+                        y: this.readFixed(),
+                        z: this.readFixed(),
+                        pitch: this.readSignedVarInt(),
+                        yaw: this.readSignedVarInt()
+                    }
+                };
+
+            // a location with the velocity the player should keep moving at, since revision 2
+            case PLAYER_MOTION:
+                return {
+                    type: "ClientPlayerLocationPayload",
+                    payload: {
+                        x: this.readFixed(),
+                        y: this.readFixed(),
+                        z: this.readFixed(),
+                        pitch: this.readSignedVarInt(),
+                        yaw: this.readSignedVarInt(),
+                        velocityX: this.readFixed(),
+                        velocityY: this.readFixed(),
+                        velocityZ: this.readFixed(),
+                        yawRate: this.readSignedVarInt()
+                    }
+                };
+
+            case SPEAKER_CREATE:
+                return {type: "ClientSpeakerCreatePayload", payload: {clientSpeaker: this.readSpeaker()}};
+
+            case SPEAKER_DESTROY:
+                return {type: "ClientSpeakerDestroyPayload", payload: {clientSpeaker: this.readSpeaker()}};
+
+            case PEER_LOCATIONS: {
+                const updateSet = [];
+                const count = this.readVarInt();
+                for (let i = 0; i < count; i++) {
+                    updateSet.push({
+                        streamKey: this.readInterned(),
+                        x: this.readFixed(),
+                        y: this.readFixed(),
+                        z: this.readFixed()
+                    });
+                }
+                return {type: "ClientVoiceUpdatePeerLocationsPayload", payload: {updateSet: updateSet}};
+            }
+
+            default:
+                console.log("[OpenAudioMc] Unknown binary packet " + kind);
+                return null;
+        }
+    }
+
+    readSpeaker() {
+        return {
+            location: {
+                x: this.readFixed(),
+                y: this.readFixed(),
+                z: this.readFixed()
+            },
+            type: SPEAKER_TYPES[this.bytes[this.offset++]],
+            id: this.readInterned(),
+            source: this.readInterned(),
+            maxDistance: this.readVarInt(),
+            startInstant: this.readSignedVarInt(),
+            obstructions: this.readVarInt()
+        };
+    }
+
+    // no bitwise operators, since those would cut everything down to 32 bits
+    readVarInt() {
+        let result = 0;
+        let multiplier = 1;
+        let current;
+        do {
+            current = this.bytes[this.offset++];
+            result += (current & 0x7F) * multiplier;
+            multiplier *= 128;
+        } while (current & 0x80);
+        return result;
+    }
+
+    readSignedVarInt() {
+        const value = this.readVarInt();
+        return value % 2 === 0 ? value / 2 : -(value + 1) / 2;
+    }
+
+    readFixed() {
+        return this.readSignedVarInt() / FIXED_POINT_SCALE;
+    }
+
+    readString() {
+        const length = this.readVarInt();
+        const value = this.textDecoder.decode(this.bytes.subarray(this.offset, this.offset + length));
+        this.offset += length;
+        return value;
+    }
+
+    // 0 is a plain string, anything else is the id + 1. The next unknown id comes with its value
+    readInterned() {
+        const tag = this.readVarInt();
+        if (tag === 0) return this.readString();
+
+        const id = tag - 1;
+        if (id === this.strings.length) this.strings.push(this.readString());
+        return this.strings[id];
+    }
+
+}
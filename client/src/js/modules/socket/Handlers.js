@@ -8,12 +8,15 @@ import {handleMediaUpdate} from "./handlers/HandleMediaUpdate";
 import {handlePlayerLocation} from "./handlers/HandlePlayerLocation";
 import {handleSpeakerCreation} from "./handlers/HandleSpeakerCreation";
 import {handleSpeakerDestroy} from "./handlers/HandleSpeakerDestroy";
+import {handleSpeakerObstructions} from "./handlers/HandleSpeakerObstructions";
 import {handlePrefetchPacket} from './handlers/HandlePrefetch'
 import {HandleVoiceUnlock} from "./handlers/HandleVoicechatUnlock";
 import {HandleVoiceChatSubscription} from "./handlers/HandleVoicechatSubscription";
 import {HandleVoiceChatDrop} from "./handlers/HandleVoicechatDrop";
 import {HandleVoicePeerLocationUpdate} from "./handlers/HandleVoicePeerLocationUpdate";
 import {HandleVoiceChatMicToggle} from "./handlers/HandleVoiceChatMicToggle";
+import {handlePacketBatch} from "./handlers/HandlePacketBatch";
+import {handleBinaryPacket} from "./handlers/HandleBinaryPacket";
 
 export class Handlers {
 
@@ -27,10 +30,13 @@ export class Handlers {
         registerClassHandler("NotificationPayload", handleNotification);
         registerClassHandler("HueColorPayload", handleHuePayload);
         registerClassHandler("ClientPlayerLocationPayload", handlePlayerLocation);
+        registerClassHandler("ClientPacketBatchPayload", handlePacketBatch);
+        registerClassHandler("ClientBinaryPayload", handleBinaryPacket);
 
         // speakers
         registerClassHandler("ClientSpeakerCreatePayload", handleSpeakerCreation);
         registerClassHandler("ClientSpeakerDestroyPayload", handleSpeakerDestroy);
+        registerClassHandler("ClientSpeakerObstructionPayload", handleSpeakerObstructions);
 
         // media
         registerClassHandler("ClientPreFetchPayload", handlePrefetchPacket);
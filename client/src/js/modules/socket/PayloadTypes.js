@@ -0,0 +1,23 @@
+// numeric payload ids as sent by the plugin, see PayloadCodecRegistry.
+// ids are never re-used, so new ones only get added at the end
+export const PayloadTypes = {
+    1: "ClientCreateMediaPayload",
+    2: "ClientDestroyMediaPayload",
+    3: "ClientUpdateMediaPayload",
+    4: "ClientPreFetchPayload",
+    5: "ClientVersionPayload",
+    6: "ClientVolumePayload",
+    7: "NotificationPayload",
+    8: "HueColorPayload",
+    9: "ClientPlayerLocationPayload",
+    10: "ClientSpeakerCreatePayload",
+    11: "ClientSpeakerDestroyPayload",
+    12: "ClientSpeakerObstructionPayload",
+    13: "ClientVoiceChatUnlockPayload",
+    14: "ClientVoiceDropPayload",
+    15: "ClientVoiceSubscribePayload",
+    16: "ClientVoiceUpdatePeerLocationsPayload",
+    17: "ClientVoiceChatToggleMicrophonePayload",
+    18: "ClientPacketBatchPayload",
+    19: "ClientBinaryPayload",
+}
@@ -1,5 +1,7 @@
 import ClientTokenSet from "../../helpers/libs/ClientTokenSet";
 import {strictlyShowCard, UiCards} from "../ui/UserInterfaceModule";
+import {PayloadTypes} from "./PayloadTypes";
+import {BinaryDecoder} from "./BinaryDecoder";
 
 export class SocketModule {
 
@@ -8,6 +10,8 @@ export class SocketModule {
         this.openAudioMc = main;
         this.callbacksEnabled = false;
         this.supportsYoutube = false;
+        this.supportsBinary = false;
+        this.binaryDecoder = new BinaryDecoder();
         this.hasConnected = false;
         this.outgoingQueue = [];
 
@@ -61,9 +65,7 @@ export class SocketModule {
         });
 
         this.socket.on("data", data => {
-            let packages = data.type.split(".");
-            let payloadType = packages[packages.length - 1];
-            if (that.handlers[payloadType] != null) that.handlers[payloadType](data.payload);
+            that.handleData(data);
         });
 
         this.socket.connect();
@@ -85,6 +87,17 @@ export class SocketModule {
         }
     }
 
+    handleData(data) {
+        let payloadType;
+        if (typeof data.type === "number") {
+            payloadType = PayloadTypes[data.type];
+        } else {
+            let packages = data.type.split(".");
+            payloadType = packages[packages.length - 1];
+        }
+        if (this.handlers[payloadType] != null) this.handlers[payloadType](data.payload);
+    }
+
     registerHandler(channel, f) {
         this.handlers[channel] = f;
     }
@@ -0,0 +1,4 @@
+export function handleBinaryPacket(openAudioMc, data) {
+    const packet = openAudioMc.socketModule.binaryDecoder.decode(data.data);
+    if (packet != null) openAudioMc.socketModule.handleData(packet);
+}
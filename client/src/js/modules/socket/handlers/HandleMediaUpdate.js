@@ -7,10 +7,12 @@ export function handleMediaUpdate(openAudioMc, data) {
     const id = data.mediaOptions.target;
     const fadeTime = data.mediaOptions.fadeTime;
     const distance = data.mediaOptions.distance;
+    const maxDistance = data.mediaOptions.maxDistance;
 
     for (let channel of openAudioMc.getMediaManager().mixer.getChannels()) {
         if (channel.hasTag(id)) {
-            channel.fadeChannel(convertDistanceToVolume(channel.maxDistance, distance), fadeTime);
+            // regular media (like regions) don't have a max distance of their own, so use the one from the update
+            channel.fadeChannel(convertDistanceToVolume(channel.maxDistance || maxDistance, distance), fadeTime);
         }
     }
 }
\ No newline at end of file
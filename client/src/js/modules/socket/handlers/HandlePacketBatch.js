@@ -0,0 +1,6 @@
+export function handlePacketBatch(openAudioMc, data) {
+    // packets in a batch have to be handled in the order the server sent them
+    for (let packet of data.packets) {
+        openAudioMc.socketModule.handleData(packet);
+    }
+}
@@ -7,5 +7,9 @@ export function handlePlayerLocation(openAudioMc, data) {
     const pitch = data.pitch;
     const yaw = data.yaw;
 
-    openAudioMc.world.player.updateLocation(new Vector3(x, y, z), pitch, yaw);
-}
\ No newline at end of file
+    // only sent to clients that extrapolate, missing means the player isn't moving
+    const velocity = new Vector3(data.velocityX, data.velocityY, data.velocityZ);
+    const yawRate = data.yawRate || 0;
+
+    openAudioMc.world.player.updateMotion(new Vector3(x, y, z), pitch, yaw, velocity, yawRate);
+}
@@ -28,6 +28,13 @@ export function handleProtocolVersion(openAudioMc, data) {
         openAudioMc.voiceModule.loudnessDetectionEnabled = true
     }
 
+    if (revision >= 7) {
+        // enable binary packets, the plugin switches once it knows we support it
+        console.log("[OpenAudioMc] PROTO rev => 7, enabling binary packets");
+        openAudioMc.socketModule.binaryDecoder.reset();
+        openAudioMc.socketModule.supportsBinary = true;
+    }
+
     // outdated? lets check it
     if (revision < 3) {
         let requestBox = new AlertBox('#alert-area', {
@@ -20,6 +20,7 @@ export function handleSpeakerCreation(openAudioMc, data) {
         speaker.type,
         speaker.maxDistance,
         speaker.startInstant,
+        speaker.obstructions,
         openAudioMc
     );
 
@@ -0,0 +1,8 @@
+export function handleSpeakerObstructions(openAudioMc, data) {
+    // the amount of walls between the player and a speaker changed
+    const speaker = openAudioMc.world.getSpeakerById(data.id);
+    if (speaker == null) return;
+    speaker.obstructions = data.obstructions;
+    // render again, so the new count gets applied to the audio
+    openAudioMc.world.onLocationUpdate();
+}
\ No newline at end of file
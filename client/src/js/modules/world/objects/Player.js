@@ -1,6 +1,11 @@
 import {Euler} from "../../../helpers/math/Euler";
 import {Quaternion} from "../../../helpers/math/Quaternion";
 import {Position} from "../../../helpers/math/Position";
+import {Vector3} from "../../../helpers/math/Vector3";
+
+// has to match LocationPredictor in the plugin, which predicts where we think we are
+const MAX_EXTRAPOLATION_SECONDS = 1;
+const EXTRAPOLATION_INTERVAL = 100;
 
 export class Player {
 
@@ -8,10 +13,54 @@ export class Player {
         this.world = world;
         this.audioCtx = new AudioContext();
         this.listener = this.audioCtx.listener;
+        this.extrapolationTask = null;
+
+        this.updateLocation(location, pitch, yaw);
+    }
+
+    // a location from the server, with the velocity (blocks per second) and yaw rate (degrees per second) to keep
+    // moving at until the next one. The server only sends a new one when this drifted too far off
+    updateMotion(location, pitch, yaw, velocity, yawRate) {
+        this.motion = {
+            location: location,
+            pitch: pitch,
+            yaw: yaw,
+            velocity: velocity,
+            yawRate: yawRate,
+            receivedAt: performance.now()
+        };
+
+        const moving = velocity.x !== 0 || velocity.y !== 0 || velocity.z !== 0 || yawRate !== 0;
+        if (moving && this.extrapolationTask == null) {
+            this.extrapolationTask = setInterval(() => this.extrapolate(), EXTRAPOLATION_INTERVAL);
+        } else if (!moving) {
+            this.stopExtrapolating();
+        }
 
         this.updateLocation(location, pitch, yaw);
     }
 
+    extrapolate() {
+        const motion = this.motion;
+        const age = Math.min((performance.now() - motion.receivedAt) / 1000, MAX_EXTRAPOLATION_SECONDS);
+
+        const location = new Vector3(
+            motion.location.x + motion.velocity.x * age,
+            motion.location.y + motion.velocity.y * age,
+            motion.location.z + motion.velocity.z * age
+        );
+        this.updateLocation(location, motion.pitch, motion.yaw + motion.yawRate * age);
+
+        // the server takes over again from here
+        if (age >= MAX_EXTRAPOLATION_SECONDS) this.stopExtrapolating();
+    }
+
+    stopExtrapolating() {
+        if (this.extrapolationTask == null) return;
+        clearInterval(this.extrapolationTask);
+        this.extrapolationTask = null;
+    }
+
     updateLocation(location, pitch, yaw) {
         this.location = location;
         this.pitch = this.toRadians(pitch);
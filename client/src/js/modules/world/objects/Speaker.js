@@ -1,19 +1,28 @@
+// volume that's left after passing through a single obstruction, the same as the plugin ranks speakers with
+export const OBSTRUCTION_ATTENUATION = 0.5;
+
 export class Speaker {
 
-    constructor(id, source, location, type, maxDistance, startInstant, openAudioMc) {
+    constructor(id, source, location, type, maxDistance, startInstant, obstructions, openAudioMc) {
         this.id = id;
         this.source = source;
         this.location = location;
         this.type = type;
         this.maxDistance = maxDistance;
         this.startInstant = startInstant;
+        this.obstructions = obstructions;
         this.openAudioMc = openAudioMc;
 
         this.channel = null;
     }
 
     getDistance(world, player) {
-        return player.location.distance(this.location);;
+        return player.location.distance(this.location);
+    }
+
+    // the walls between the player and this speaker, as traced by the server
+    getObstructionGain() {
+        return Math.pow(OBSTRUCTION_ATTENUATION, this.obstructions || 0);
     }
-    
+
 }
\ No newline at end of file
@@ -49,13 +49,16 @@ export class SpeakerPlayer {
                 // assuming the range got updated so skipping it
                 return;
             }
-            this.channel.fadeChannel(volume, 100);
+            this.channel.fadeChannel(Math.round(volume * closest.getObstructionGain()), 100);
         } else {
-            if (!this.speakerNodes.has(closest.id)) {
+            const node = this.speakerNodes.get(closest.id);
+            if (node == null) {
                 this.channel.fadeChannel(100, 100);
                 this.speakerNodes.set(closest.id, new SpeakerRenderNode(
                     closest, world, player, this.media
                 ));
+            } else {
+                node.setObstructions(closest);
             }
         }
     }
@@ -7,6 +7,7 @@ export class SpeakerRenderNode {
         // Sound object > Panner Node > Gain Node > Audio Device
 
         this.pannerNode = player.audioCtx.createPanner();
+        this.gainNode = player.audioCtx.createGain();
         this.media = media;
 
         media.addNode(player, this.pannerNode);
@@ -20,7 +21,13 @@ export class SpeakerRenderNode {
         const position = new Position(location);
         position.applyTo(this.pannerNode);
 
-        this.pannerNode.connect(player.audioCtx.destination);
+        this.setObstructions(speaker);
+        this.pannerNode.connect(this.gainNode);
+        this.gainNode.connect(player.audioCtx.destination);
+    }
+
+    setObstructions(speaker) {
+        this.gainNode.gain.value = speaker.getObstructionGain();
     }
 
 }
\ No newline at end of file
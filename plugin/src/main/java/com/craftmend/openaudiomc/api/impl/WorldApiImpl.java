@@ -10,7 +10,6 @@ import com.craftmend.openaudiomc.spigot.modules.predictive.PredictiveMediaModule
 import com.craftmend.openaudiomc.spigot.modules.regions.RegionModule;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.AbstractRegionAdapter;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.IRegion;
-import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 import org.bukkit.Location;
 import org.jetbrains.annotations.Nullable;
@@ -38,7 +37,7 @@ public class WorldApiImpl implements WorldApi {
     @Override
     public Speaker getPhysicalSpeaker(Location location) {
         if (OpenAudioMc.getInstance().getPlatform() != Platform.SPIGOT) throw new IllegalStateException("This method is only available in a SPIGOT server.");
-        return OpenAudioMcSpigot.getInstance().getSpeakerModule().getSpeaker(MappedLocation.fromBukkit(location));
+        return OpenAudioMcSpigot.getInstance().getSpeakerModule().getSpeaker(location);
     }
 
     @Override
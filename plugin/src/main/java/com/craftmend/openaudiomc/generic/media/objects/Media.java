@@ -35,6 +35,30 @@ public class Media {
         this.startInstant = OpenAudioMc.getInstance().getTimeService().getSyncedInstant().toEpochMilli();
     }
 
+    private Media(Media other) {
+        this.mediaId = other.mediaId;
+        this.source = other.source;
+        this.startInstant = other.startInstant;
+        this.keepTimeout = other.keepTimeout;
+        this.doPickup = other.doPickup;
+        this.loop = other.loop;
+        this.fadeTime = other.fadeTime;
+        this.volume = other.volume;
+        this.flag = other.flag;
+    }
+
+    /**
+     * Media can be shared between players, so a single player that needs it at another volume gets a copy
+     *
+     * @param volume volume of the copy
+     * @return a copy of this media (same id and start instant) with another volume
+     */
+    public Media withVolume(int volume) {
+        Media copy = new Media(this);
+        copy.volume = volume;
+        return copy;
+    }
+
     /**
      * You can apply multiple options.
      * Used by the commands to allow settings via JSON
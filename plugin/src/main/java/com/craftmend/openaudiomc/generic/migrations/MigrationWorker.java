@@ -24,6 +24,13 @@ public class MigrationWorker {
             new AddNewVoicechatMessagesMigration(), // adds new chat messages for the voice chat system
             new AddVcAnnouncementMigration(),       // adds the config option to toggle chat announcements
             new VoiceConnectedMessageMigration(),   // adds required messages for mic mute commands
+            new AddObstructionDistanceMigration(),  // adds the config option for re-checking speaker obstructions
+            new SpeakerStoreMigration(),            // moves speakers from data.yml to the speaker store
+            new AddSpeakerBudgetMigration(),        // adds the config option for the max amount of speakers per player
+            new AddRegionFalloffMigration(),        // adds the config option for fading region audio near their edges
+            new AddRelayAggregationMigration(),     // adds the config option for combining relay messages
+            new AddVoiceLocationThresholdMigration(), // adds the config option for skipping small voice chat movements
+            new AddLocationErrorThresholdMigration(), // adds the config option for predicting player locations
     };
 
     public void handleMigrations() {
@@ -0,0 +1,81 @@
+package com.craftmend.openaudiomc.generic.migrations.migrations;
+
+import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.generic.migrations.interfaces.SimpleMigration;
+import com.craftmend.openaudiomc.generic.platform.Platform;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageLocation;
+import com.craftmend.openaudiomc.generic.storage.interfaces.ConfigurationImplementation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
+import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
+import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+import com.craftmend.openaudiomc.spigot.modules.speakers.storage.SpeakerStore;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+public class SpeakerStoreMigration extends SimpleMigration {
+
+    @Override
+    public boolean shouldBeRun() {
+        if (OpenAudioMc.getInstance().getPlatform() != Platform.SPIGOT) return false;
+        ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
+        return !config.getStringSet("speakers", StorageLocation.DATA_FILE).isEmpty();
+    }
+
+    @Override
+    public void execute() {
+        ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
+        SpeakerStore store = new SpeakerStore(new File("plugins/OpenAudioMc"));
+        store.load();
+
+        int failed = 0;
+        for (String id : config.getStringSet("speakers", StorageLocation.DATA_FILE)) {
+            try {
+                store.save(fromDataFile(config, id));
+            } catch (Exception e) {
+                OpenAudioLogger.toConsole("Failed to migrate speaker " + id + ", skipping it. " + e.getMessage());
+                failed++;
+            }
+        }
+        if (!store.close()) {
+            // try again on the next start, the data file still has everything
+            OpenAudioLogger.toConsole("Failed to write speakers.dat, keeping the speakers in data.yml for now.");
+            return;
+        }
+        OpenAudioLogger.toConsole("Migrated " + store.size() + " speakers to speakers.dat (" + failed + " failed)");
+
+        // they're all in the store now, so they don't need to be in the data file anymore
+        config.setString(StorageLocation.DATA_FILE, "speakers", null);
+        config.saveAll();
+    }
+
+    private Speaker fromDataFile(ConfigurationImplementation config, String id) {
+        String path = "speakers." + id;
+        String world = config.getStringFromPath(path + ".world", StorageLocation.DATA_FILE);
+        if (world.startsWith("<")) throw new IllegalArgumentException("It doesn't have a world");
+        String media = config.getStringFromPath(path + ".media", StorageLocation.DATA_FILE);
+        int x = config.getIntFromPath(path + ".x", StorageLocation.DATA_FILE);
+        int y = config.getIntFromPath(path + ".y", StorageLocation.DATA_FILE);
+        int z = config.getIntFromPath(path + ".z", StorageLocation.DATA_FILE);
+        int radius = config.getIntFromPath(path + ".radius", StorageLocation.DATA_FILE);
+
+        Set<ExtraSpeakerOptions> extraOptions = new HashSet<>();
+        for (String option : config.getStringSet(path + ".options", StorageLocation.DATA_FILE)) {
+            if (config.getStringFromPath(path + ".options." + option, StorageLocation.DATA_FILE).equalsIgnoreCase("true")) {
+                extraOptions.add(ExtraSpeakerOptions.valueOf(option.toUpperCase()));
+            }
+        }
+
+        // speakers from before the type was introduced don't have one, those are 2D
+        String typeName = config.getStringFromPath(path + ".type", StorageLocation.DATA_FILE);
+        SpeakerType speakerType = typeName.startsWith("<") ? SpeakerModule.DEFAULT_SPEAKER_TYPE : SpeakerType.valueOf(typeName);
+
+        return new Speaker(media, UUID.fromString(id), radius, new MappedLocation(x, y, z, world), speakerType, extraOptions);
+    }
+
+}
@@ -3,6 +3,7 @@ package com.craftmend.openaudiomc.generic.networking;
 import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
 import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientRtcLocationUpdate;
 import com.craftmend.openaudiomc.generic.networking.enums.PacketChannel;
 import com.craftmend.openaudiomc.generic.networking.handlers.*;
 
@@ -11,9 +12,13 @@ import com.craftmend.openaudiomc.generic.networking.abstracts.PayloadHandler;
 import com.craftmend.openaudiomc.generic.networking.interfaces.Authenticatable;
 import com.craftmend.openaudiomc.generic.networking.interfaces.INetworkingEvents;
 import com.craftmend.openaudiomc.generic.networking.interfaces.NetworkingService;
+import com.craftmend.openaudiomc.generic.networking.io.ClientOutbox;
+import com.craftmend.openaudiomc.generic.networking.io.OutboundQueue;
 import com.craftmend.openaudiomc.generic.networking.io.SocketIoConnector;
 import com.craftmend.openaudiomc.generic.networking.packets.client.media.PacketClientCreateMedia;
 import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientCreateSpeaker;
+import com.craftmend.openaudiomc.generic.networking.packets.client.voice.PacketClientUpdateVoiceLocations;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceUpdatePeerLocationsPayload;
 import com.craftmend.openaudiomc.generic.platform.Platform;
 import com.craftmend.openaudiomc.generic.player.ProxiedPlayerAdapter;
 import com.craftmend.openaudiomc.generic.player.SpigotPlayerAdapter;
@@ -28,15 +33,36 @@ import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultNetworkingService extends NetworkingService {
 
     @Getter
-    private final Set<INetworkingEvents> eventHandlers = new HashSet<>();
+    private final Set<INetworkingEvents> eventHandlers = ConcurrentHashMap.newKeySet();
     private final Map<UUID, ClientConnection> clientMap = new HashMap<>();
     private final Map<PacketChannel, PayloadHandler<?>> packetHandlerMap = new HashMap<>();
+    private final Map<UUID, ClientOutbox> outboxes = new ConcurrentHashMap<>();
+    private final OutboundQueue outboundQueue;
     private SocketIoConnector socketIoConnector;
 
+    // packets that are read by the relay, or are too latency sensitive to wait for the next flush
+    private static final Set<PacketChannel> IMMEDIATE_CHANNELS = EnumSet.of(
+            PacketChannel.SOCKET_OUT_KICK_CLIENT,
+            PacketChannel.SOCKET_OUT_ACKNOWLEDGEMENT,
+            PacketChannel.CLIENT_OUT_SET_PROTOCOL_VERSION,
+            PacketChannel.CLIENT_OUT_VOICE_UNLOCK,
+            PacketChannel.CLIENT_OUT_VOICE_DROP_STREAM,
+            PacketChannel.CLIENT_OUT_VOICE_SUBSCRIBE,
+            PacketChannel.CLIENT_OUT_TOGGLE_MIC
+    );
+
+    // packets that get sent again soon enough, so they can be dropped when a client falls behind
+    private static final Set<PacketChannel> LOSSY_CHANNELS = EnumSet.of(
+            PacketChannel.CLIENT_OUT_PLAYER_LOCATION,
+            PacketChannel.CLIENT_OUT_SPEAKER_OBSTRUCTIONS,
+            PacketChannel.CLIENT_OUT_VOICE_UPDATE_PEER_LOCATIONS
+    );
+
     /**
      * setup the plugin connection
      */
@@ -54,6 +80,13 @@ public class DefaultNetworkingService extends NetworkingService {
 
         init();
 
+        // serialization and emitting happen on the outbound thread, which also flushes the outboxes
+        outboundQueue = new OutboundQueue(this::deliver, this::flushAll, LOSSY_CHANNELS);
+        // only the latest location matters, and peer updates can be combined
+        outboundQueue.registerMerger(PacketChannel.CLIENT_OUT_PLAYER_LOCATION, (queued, latest) -> latest);
+        outboundQueue.registerMerger(PacketChannel.CLIENT_OUT_VOICE_UPDATE_PEER_LOCATIONS, DefaultNetworkingService::mergePeerLocations);
+        outboundQueue.start();
+
         // middleware
         addEventHandler(new INetworkingEvents() {
             @Override
@@ -86,7 +119,8 @@ public class DefaultNetworkingService extends NetworkingService {
     }
 
     /**
-     * send a packet to a client connection, if connected
+     * send a packet to a client connection, if connected.
+     * Hooks run right away on the calling thread (they might need bukkit), the packet itself gets handled on the outbound thread
      *
      * @param client the target
      * @param packet the data
@@ -94,7 +128,49 @@ public class DefaultNetworkingService extends NetworkingService {
     @Override
     public void send(Authenticatable client, AbstractPacket packet) {
         for (INetworkingEvents event : getEvents()) event.onPacketSend(client, packet);
-        socketIoConnector.send(client, packet);
+        outboundQueue.enqueue(client, packet, IMMEDIATE_CHANNELS.contains(packet.getPacketChannel()));
+    }
+
+    /**
+     * Packets get buffered and sent together with everything else the client got during this tick,
+     * unless they're on one of the immediate channels
+     *
+     * @param client the target
+     * @param packet the data
+     */
+    private void deliver(Authenticatable client, AbstractPacket packet) {
+        // players get a new connection when they come back, which shouldn't inherit anything from the old one
+        ClientOutbox outbox = outboxes.compute(client.getOwnerUUID(), (uuid, existing) ->
+                existing != null && existing.getClient() == client ? existing : new ClientOutbox(client, !socketIoConnector.isAggregateFrames())
+        );
+
+        if (IMMEDIATE_CHANNELS.contains(packet.getPacketChannel())) {
+            // flush whatever is buffered first, so the client still gets everything in order
+            outbox.flush(p -> socketIoConnector.send(outbox.getClient(), p, p == packet), packet);
+            return;
+        }
+
+        if (outbox.add(packet)) flush(outbox);
+    }
+
+    private void flush(ClientOutbox outbox) {
+        outbox.flush(packet -> socketIoConnector.send(outbox.getClient(), packet), null);
+    }
+
+    private void flushAll() {
+        for (ClientOutbox outbox : outboxes.values()) flush(outbox);
+        socketIoConnector.flushFrames();
+    }
+
+    private static AbstractPacket mergePeerLocations(AbstractPacket queued, AbstractPacket latest) {
+        Map<String, ClientRtcLocationUpdate> updates = new LinkedHashMap<>();
+        for (AbstractPacket packet : new AbstractPacket[]{queued, latest}) {
+            Set<ClientRtcLocationUpdate> updateSet = ((ClientVoiceUpdatePeerLocationsPayload) packet.getData()).getUpdateSet();
+            if (updateSet == null) continue;
+            // newer locations overwrite the queued ones of the same peer
+            for (ClientRtcLocationUpdate update : updateSet) updates.put(update.getStreamKey(), update);
+        }
+        return new PacketClientUpdateVoiceLocations(new ClientVoiceUpdatePeerLocationsPayload(new HashSet<>(updates.values())));
     }
 
     /**
@@ -180,6 +256,8 @@ public class DefaultNetworkingService extends NetworkingService {
 
             client.onDestroy();
             clientMap.remove(player);
+            // the kick packet is still queued, so the outbox can only go after that
+            outboundQueue.execute(() -> outboxes.computeIfPresent(player, (uuid, outbox) -> outbox.getClient() == client ? null : outbox));
         }
     }
 
@@ -212,6 +290,7 @@ public class DefaultNetworkingService extends NetworkingService {
      */
     @Override
     public void stop() {
+        outboundQueue.shutdown();
         socketIoConnector.disconnect();
     }
 
@@ -1,39 +1,27 @@
 package com.craftmend.openaudiomc.generic.networking.addapter;
 
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
-import com.google.gson.*;
-import java.lang.reflect.Type;
+import com.craftmend.openaudiomc.generic.networking.codec.PayloadCodecRegistry;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-public class AbstractPacketAdapter implements JsonSerializer<AbstractPacketPayload>, JsonDeserializer<AbstractPacketPayload> {
+import java.io.IOException;
+
+public class AbstractPacketAdapter extends TypeAdapter<AbstractPacketPayload> {
 
     /**
-     * a type adapter for the using of the packet framework
+     * a type adapter for the using of the packet framework,
+     * streams payloads through their precompiled codec instead of going through a json tree and reflection
      */
 
     @Override
-    public JsonElement serialize(AbstractPacketPayload src, Type typeOfSrc, JsonSerializationContext context) {
-        JsonObject result = new JsonObject();
-
-        result.add("type", new JsonPrimitive(src.getClass().getName()));
-        result.add("payload", context.serialize(src, src.getClass()));
-
-        return result;
+    public void write(JsonWriter out, AbstractPacketPayload value) throws IOException {
+        PayloadCodecRegistry.writePayload(out, value);
     }
 
     @Override
-    public AbstractPacketPayload deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        JsonObject jsonObject = json.getAsJsonObject();
-        String type = jsonObject.get("type").getAsString();
-        JsonElement element = jsonObject.get("payload");
-
-        try {
-            if (type.contains("com.craftmend.openaudiomc")) {
-                return context.deserialize(element, Class.forName(type));
-            }
-
-            return context.deserialize(element, Class.forName("com.craftmend.openaudiomc.generic.networking.payloads." + type));
-        } catch (ClassNotFoundException cnfe) {
-            throw new JsonParseException("Unknown element type: " + type, cnfe);
-        }
+    public AbstractPacketPayload read(JsonReader in) throws IOException {
+        return PayloadCodecRegistry.readPayload(in);
     }
-}
\ No newline at end of file
+}
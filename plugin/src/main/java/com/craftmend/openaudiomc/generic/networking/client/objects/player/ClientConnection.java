@@ -8,6 +8,7 @@ import com.craftmend.openaudiomc.api.interfaces.AudioApi;
 import com.craftmend.openaudiomc.api.interfaces.Client;
 import com.craftmend.openaudiomc.bungee.OpenAudioMcBungee;
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.codec.binary.BinaryPacketEncoder;
 import com.craftmend.openaudiomc.generic.networking.enums.MediaError;
 import com.craftmend.openaudiomc.generic.networking.interfaces.Authenticatable;
 import com.craftmend.openaudiomc.generic.networking.packets.client.hue.PacketClientApplyHueColor;
@@ -56,6 +57,7 @@ public class ClientConnection implements Authenticatable, Client {
     private boolean isConnected = false;
     @Setter @Getter private PlayerSession session;
     @Getter private ClientRtcManager clientRtcManager;
+    @Getter private final BinaryPacketEncoder binaryEncoder = new BinaryPacketEncoder();
     @Setter @Getter private String streamKey;
 
     @Setter @Getter private boolean isWaitingToken = false;
@@ -151,6 +153,7 @@ public class ClientConnection implements Authenticatable, Client {
         this.isConnected = false;
         this.hasHueLinked = false;
         this.isConnectedToRtc = false;
+        this.binaryEncoder.reset();
         disconnectHandlers.forEach(event -> event.run());
 
         // am I a proxy thingy? then send it to my other thingy
@@ -12,26 +12,29 @@ import com.craftmend.openaudiomc.generic.networking.packets.client.voice.PacketC
 import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceDropPayload;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceSubscribePayload;
 import com.craftmend.openaudiomc.generic.platform.Platform;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.players.enums.PlayerLocationFollower;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
 import lombok.Getter;
 import org.bukkit.Location;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
 public class ClientRtcManager {
 
     @Getter
     private boolean isMicrophoneEnabled = false;
-    @Getter
-    private Set<UUID> subscriptions = new HashSet<>();
+    // who I'm listening to, and who is listening to me. Links always go both ways, but both sides are kept
+    // so location updates and drops only have to go to the actual listeners instead of every client
+    private final Map<UUID, ClientConnection> subscriptions = new ConcurrentHashMap<>();
+    private final Map<UUID, ClientConnection> listeners = new ConcurrentHashMap<>();
     private ClientConnection clientConnection;
+    // the newest location of everyone I'm listening to, sent every couple of ticks
     @Getter
-    private Set<ClientRtcLocationUpdate> locationUpdateQueue = ConcurrentHashMap.newKeySet();
+    private final VoiceLocationSlots locationSlots = new VoiceLocationSlots(Math.max(0, StorageKey.SETTINGS_VC_LOCATION_THRESHOLD.getInt()) / 10d);
 
 
     public ClientRtcManager(ClientConnection clientConnection) {
@@ -39,13 +42,34 @@ public class ClientRtcManager {
 
         this.clientConnection.onDisconnect(() -> {
             // go over all other clients, check if we might have a relations ship and break up if thats the case
-            subscriptions.clear();
             this.isMicrophoneEnabled = false;
             makePeersDrop();
-            locationUpdateQueue.clear();
+            clearSubscriptions();
+            locationSlots.clear();
         });
     }
 
+    /**
+     * @return the uuids of everyone I'm listening to
+     */
+    public Set<UUID> getSubscriptions() {
+        return Collections.unmodifiableSet(subscriptions.keySet());
+    }
+
+    /**
+     * @return a snapshot of everyone I'm listening to
+     */
+    public Collection<ClientConnection> getSubscribedPeers() {
+        return new ArrayList<>(subscriptions.values());
+    }
+
+    /**
+     * @return a snapshot of everyone that's listening to me
+     */
+    public Collection<ClientConnection> getListeners() {
+        return new ArrayList<>(listeners.values());
+    }
+
     /**
      * Makes two users listen to one another
      *
@@ -56,17 +80,22 @@ public class ClientRtcManager {
         if (!isReady())
             return false;
 
-        if (!peer.getClientRtcManager().isReady())
+        ClientRtcManager other = peer.getClientRtcManager();
+        if (!other.isReady())
             return false;
 
-        if (subscriptions.contains(peer.getOwnerUUID()))
-            return false;
+        boolean linked = lockPair(other, () -> {
+            if (subscriptions.containsKey(peer.getOwnerUUID()))
+                return false;
 
-        if (peer.getClientRtcManager().subscriptions.contains(clientConnection.getOwnerUUID()))
-            return false;
+            if (other.subscriptions.containsKey(clientConnection.getOwnerUUID()))
+                return false;
 
-        peer.getClientRtcManager().getSubscriptions().add(clientConnection.getOwnerUUID());
-        subscriptions.add(peer.getOwnerUUID());
+            subscribe(other, this);
+            subscribe(this, other);
+            return true;
+        });
+        if (!linked) return false;
 
         peer.sendPacket(new PacketClientSubscribeToVoice(ClientVoiceSubscribePayload.fromClient(clientConnection)));
         clientConnection.sendPacket(new PacketClientSubscribeToVoice(ClientVoiceSubscribePayload.fromClient(peer)));
@@ -76,39 +105,92 @@ public class ClientRtcManager {
         AudioApi.getInstance().getEventDriver().fire(new PlayerEnterVoiceProximityEvent(peer, clientConnection, VoiceEventCause.NORMAL));
 
         updateLocationWatcher();
-        peer.getClientRtcManager().updateLocationWatcher();
+        other.updateLocationWatcher();
+
+        return true;
+    }
+
+    /**
+     * Makes two users stop listening to one another
+     *
+     * @param peer Who I should stop being friends with
+     * @return If we were friends
+     */
+    public boolean unlink(ClientConnection peer) {
+        ClientRtcManager other = peer.getClientRtcManager();
+        // both directions have to go, even if only one of them was still there
+        boolean linked = lockPair(other, () -> unsubscribe(this, other) | unsubscribe(other, this));
+        if (!linked) return false;
+
+        clientConnection.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(peer.getStreamKey())));
+        peer.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(clientConnection.getStreamKey())));
+
+        AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(clientConnection, peer, VoiceEventCause.NORMAL));
+        AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(peer, clientConnection, VoiceEventCause.NORMAL));
+
+        updateLocationWatcher();
+        other.updateLocationWatcher();
 
         return true;
     }
 
     public void makePeersDrop() {
-        for (ClientConnection peer : OpenAudioMc.getInstance().getNetworkingService().getClients()) {
-            if (peer.getOwnerUUID() == clientConnection.getOwnerUUID())
+        for (ClientConnection peer : getListeners()) {
+            ClientRtcManager other = peer.getClientRtcManager();
+            if (!lockPair(other, () -> unsubscribe(other, this)))
                 continue;
 
-            if (peer.getClientRtcManager().subscriptions.contains(clientConnection.getOwnerUUID())) {
-                // send unsub packet
-                peer.getClientRtcManager().subscriptions.remove(clientConnection.getOwnerUUID());
-                peer.getClientRtcManager().updateLocationWatcher();
-                peer.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(clientConnection.getStreamKey())));
+            // send unsub packet
+            other.updateLocationWatcher();
+            peer.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(clientConnection.getStreamKey())));
 
-                AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(clientConnection, peer, VoiceEventCause.NORMAL));
-            }
+            AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(clientConnection, peer, VoiceEventCause.NORMAL));
         }
     }
 
     public void onLocationTick(Location location) {
-        for (ClientConnection peer : OpenAudioMc.getInstance().getNetworkingService().getClients()) {
-            if (peer.getOwnerUUID() == clientConnection.getOwnerUUID())
-                continue;
+        for (ClientConnection peer : listeners.values()) {
+            peer.getClientRtcManager().locationSlots.offer(
+                    clientConnection.getStreamKey(),
+                    location.getX(),
+                    location.getY(),
+                    location.getZ()
+            );
+        }
+    }
+
+    // stop listening to everyone, without telling anyone
+    private void clearSubscriptions() {
+        for (ClientConnection peer : getSubscribedPeers()) {
+            ClientRtcManager other = peer.getClientRtcManager();
+            lockPair(other, () -> unsubscribe(this, other));
+        }
+    }
+
+    private static void subscribe(ClientRtcManager listener, ClientRtcManager source) {
+        listener.subscriptions.put(source.clientConnection.getOwnerUUID(), source.clientConnection);
+        source.listeners.put(listener.clientConnection.getOwnerUUID(), listener.clientConnection);
+    }
+
+    private static boolean unsubscribe(ClientRtcManager listener, ClientRtcManager source) {
+        boolean removed = listener.subscriptions.remove(source.clientConnection.getOwnerUUID()) != null;
+        source.listeners.remove(listener.clientConnection.getOwnerUUID());
+        listener.locationSlots.remove(source.clientConnection.getStreamKey());
+        return removed;
+    }
+
+    // both sides of a link get changed together, always locked in the same order so two tickers can't deadlock
+    private boolean lockPair(ClientRtcManager other, BooleanSupplier action) {
+        ClientRtcManager first = this;
+        ClientRtcManager second = other;
+        if (clientConnection.getOwnerUUID().compareTo(other.clientConnection.getOwnerUUID()) > 0) {
+            first = other;
+            second = this;
+        }
 
-            if (peer.getClientRtcManager().subscriptions.contains(clientConnection.getOwnerUUID())) {
-                peer.getClientRtcManager().locationUpdateQueue.add(new ClientRtcLocationUpdate(
-                        clientConnection.getStreamKey(),
-                        location.getX(),
-                        location.getY(),
-                        location.getZ()
-                ));
+        synchronized (first) {
+            synchronized (second) {
+                return action.getAsBoolean();
             }
         }
     }
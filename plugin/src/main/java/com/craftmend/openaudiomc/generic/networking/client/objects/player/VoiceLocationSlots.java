@@ -0,0 +1,104 @@
+package com.craftmend.openaudiomc.generic.networking.client.objects.player;
+
+import com.craftmend.openaudiomc.generic.utils.FixedPoint;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The latest location of every peer a listener hears, keyed by stream key. A peer that moves a couple of times between
+ * two flushes only overwrites its slot, so it gets sent once with its newest location, and moves smaller than the
+ * threshold don't get sent at all. Locations get quantized to a tenth of a block, the same precision the client gets
+ * from the binary protocol.
+ */
+public class VoiceLocationSlots {
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private final double thresholdSquared;
+
+    /**
+     * @param threshold the distance in blocks a peer has to move before it gets sent again
+     */
+    public VoiceLocationSlots(double threshold) {
+        this.thresholdSquared = threshold * threshold;
+    }
+
+    public void offer(String streamKey, double x, double y, double z) {
+        if (slots.computeIfAbsent(streamKey, Slot::new).update(quantize(x), quantize(y), quantize(z), thresholdSquared)) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * @param streamKey peer that isn't heard anymore
+     */
+    public void remove(String streamKey) {
+        slots.remove(streamKey);
+    }
+
+    public void clear() {
+        slots.clear();
+        dirty.set(false);
+    }
+
+    /**
+     * Take every location that changed since the last drain
+     *
+     * @param out collection to add the changed locations to
+     * @return true if anything got added
+     */
+    public boolean drain(Collection<ClientRtcLocationUpdate> out) {
+        if (!dirty.getAndSet(false)) return false;
+
+        boolean drained = false;
+        for (Slot slot : slots.values()) {
+            ClientRtcLocationUpdate update = slot.take();
+            if (update != null) {
+                out.add(update);
+                drained = true;
+            }
+        }
+        return drained;
+    }
+
+    private static double quantize(double value) {
+        return FixedPoint.round(value, 1);
+    }
+
+    private static final class Slot {
+        private final String streamKey;
+        private double x, y, z;
+        private boolean hasLocation = false;
+        private boolean dirty = false;
+
+        private Slot(String streamKey) {
+            this.streamKey = streamKey;
+        }
+
+        // compares with the last location that got queued, so slow movement still adds up to an update
+        private synchronized boolean update(double x, double y, double z, double thresholdSquared) {
+            if (hasLocation) {
+                double dx = x - this.x, dy = y - this.y, dz = z - this.z;
+                double distanceSquared = (dx * dx) + (dy * dy) + (dz * dz);
+                if (distanceSquared == 0 || distanceSquared < thresholdSquared) return false;
+            }
+
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.hasLocation = true;
+            this.dirty = true;
+            return true;
+        }
+
+        private synchronized ClientRtcLocationUpdate take() {
+            if (!dirty) return null;
+            dirty = false;
+            return new ClientRtcLocationUpdate(streamKey, x, y, z);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.craftmend.openaudiomc.generic.networking.codec;
+
+import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+/**
+ * How a single payload type goes over the wire.
+ *
+ * Client bound payloads have a numeric type id, payloads that are read or sent by the relay keep their class name
+ * (id NAMED) since the relay doesn't know about ids. Payloads without a hand written writer fall back to a
+ * gson adapter that is only looked up once.
+ *
+ * A hand written writer repeats the fields of its payload, so the first payload it writes gets checked against what
+ * gson would have written. If the writer misses a field (or writes one that doesn't exist), it gets logged and the
+ * codec falls back to gson, instead of silently dropping that field for every client.
+ *
+ * @param <T> payload type
+ */
+public class PayloadCodec<T extends AbstractPacketPayload> {
+
+    public static final int NAMED = -1;
+
+    @Getter private final int id;
+    @Getter private final Class<T> type;
+    private volatile PayloadWriter<T> writer;
+    private volatile boolean verified = false;
+    private volatile TypeAdapter<T> adapter;
+
+    public PayloadCodec(int id, Class<T> type, PayloadWriter<T> writer) {
+        this.id = id;
+        this.type = type;
+        this.writer = writer;
+    }
+
+    public boolean isNamed() {
+        return id == NAMED;
+    }
+
+    public void write(JsonWriter out, AbstractPacketPayload payload) throws IOException {
+        T typed = type.cast(payload);
+        if (!verified) verify(typed);
+
+        PayloadWriter<T> writer = this.writer;
+        if (writer == null) {
+            getAdapter().write(out, typed);
+            return;
+        }
+
+        out.beginObject();
+        writer.write(out, typed);
+        out.endObject();
+    }
+
+    public T read(JsonReader in) throws IOException {
+        return getAdapter().read(in);
+    }
+
+    private void verify(T payload) throws IOException {
+        verified = true;
+        if (writer == null) return;
+
+        StringWriter buffer = new StringWriter();
+        JsonWriter out = new JsonWriter(buffer);
+        out.beginObject();
+        writer.write(out, payload);
+        out.endObject();
+        out.flush();
+
+        JsonElement written = OpenAudioMc.getGson().fromJson(buffer.toString(), JsonElement.class);
+        JsonElement expected = OpenAudioMc.getGson().toJsonTree(payload, type);
+        String mismatch = compare("", expected, written);
+        if (mismatch != null) {
+            OpenAudioLogger.toConsole("The writer for " + type.getSimpleName() + " doesn't match the payload (" + mismatch + "), falling back to reflection");
+            writer = null;
+        }
+    }
+
+    /**
+     * @return the path of the first field that doesn't match, or null if the writer covers everything gson writes.
+     * A writer may leave out fields that are zero, false or null, since the client treats those the same as missing.
+     */
+    private static String compare(String path, JsonElement expected, JsonElement written) {
+        if (expected.isJsonObject() && written.isJsonObject()) {
+            JsonObject expectedObject = expected.getAsJsonObject();
+            JsonObject writtenObject = written.getAsJsonObject();
+            for (Map.Entry<String, JsonElement> field : expectedObject.entrySet()) {
+                JsonElement value = writtenObject.get(field.getKey());
+                if (value == null) {
+                    if (isDefault(field.getValue())) continue;
+                    return "missing " + path + field.getKey();
+                }
+                String mismatch = compare(path + field.getKey() + ".", field.getValue(), value);
+                if (mismatch != null) return mismatch;
+            }
+            for (Map.Entry<String, JsonElement> field : writtenObject.entrySet()) {
+                if (!expectedObject.has(field.getKey()) && !field.getValue().isJsonNull()) {
+                    return "unknown " + path + field.getKey();
+                }
+            }
+            return null;
+        }
+
+        if (expected.isJsonArray() && written.isJsonArray()) {
+            JsonArray expectedArray = expected.getAsJsonArray();
+            JsonArray writtenArray = written.getAsJsonArray();
+            if (expectedArray.size() != writtenArray.size()) return "size of " + path;
+            for (int i = 0; i < expectedArray.size(); i++) {
+                String mismatch = compare(path + i + ".", expectedArray.get(i), writtenArray.get(i));
+                if (mismatch != null) return mismatch;
+            }
+            return null;
+        }
+
+        // only the shape is checked, values are up to the writer
+        if (expected.isJsonObject() || written.isJsonObject() || expected.isJsonArray() || written.isJsonArray()) {
+            return "type of " + path;
+        }
+        return null;
+    }
+
+    private static boolean isDefault(JsonElement value) {
+        if (value.isJsonNull()) return true;
+        if (!value.isJsonPrimitive()) return false;
+        if (value.getAsJsonPrimitive().isBoolean()) return !value.getAsBoolean();
+        if (value.getAsJsonPrimitive().isNumber()) return value.getAsDouble() == 0;
+        return false;
+    }
+
+    private TypeAdapter<T> getAdapter() {
+        TypeAdapter<T> adapter = this.adapter;
+        if (adapter == null) {
+            adapter = OpenAudioMc.getGson().getAdapter(type);
+            this.adapter = adapter;
+        }
+        return adapter;
+    }
+
+}
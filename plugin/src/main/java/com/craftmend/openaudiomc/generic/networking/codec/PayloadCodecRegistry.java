@@ -0,0 +1,282 @@
+package com.craftmend.openaudiomc.generic.networking.codec;
+
+import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientRtcLocationUpdate;
+import com.craftmend.openaudiomc.generic.networking.payloads.*;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.batch.ClientPacketBatchPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.binary.ClientBinaryPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.hue.HueColorPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.media.ClientCreateMediaPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.media.ClientDestroyMediaPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.media.ClientPreFetchPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.media.ClientUpdateMediaPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientPlayerLocationPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerCreatePayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerDestroyPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerObstructionPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.ClientSpeaker;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.ui.ClientVersionPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.ui.ClientVolumePayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.ui.NotificationPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.*;
+import com.craftmend.openaudiomc.generic.networking.payloads.in.*;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All payload types that go over the socket, with their type id and writer.
+ *
+ * Ids are part of the protocol, the web client has the same table (PayloadTypes.js).
+ * Never re-use or change an id, only add new ones.
+ */
+public class PayloadCodecRegistry {
+
+    private static final String PAYLOAD_PACKAGE = "com.craftmend.openaudiomc.generic.networking.payloads.";
+
+    private static final Map<Class<?>, PayloadCodec<?>> byClass = new HashMap<>();
+    private static final Map<String, PayloadCodec<?>> byName = new HashMap<>();
+    private static final PayloadCodec<?>[] byId = new PayloadCodec<?>[64];
+    // payloads from addons that aren't registered, resolved once instead of on every message
+    private static final Map<String, Class<? extends AbstractPacketPayload>> unregistered = new ConcurrentHashMap<>();
+
+    static {
+        // media
+        register(1, ClientCreateMediaPayload.class, null);
+        register(2, ClientDestroyMediaPayload.class, (out, payload) -> {
+            out.name("soundId").value(payload.getSoundId());
+            out.name("all").value(payload.isAll());
+            out.name("fadeTime").value(payload.getFadeTime());
+        });
+        register(3, ClientUpdateMediaPayload.class, (out, payload) -> {
+            out.name("mediaOptions");
+            if (payload.getMediaOptions() == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("distance").value(payload.getMediaOptions().getDistance());
+            out.name("maxDistance").value(payload.getMediaOptions().getMaxDistance());
+            out.name("fadeTime").value(payload.getMediaOptions().getFadeTime());
+            out.name("target").value(payload.getMediaOptions().getTarget());
+            out.endObject();
+        });
+        register(4, ClientPreFetchPayload.class, null);
+
+        // ui
+        register(5, ClientVersionPayload.class, (out, payload) -> out.name("protocolRevision").value(payload.getProtocolRevision()));
+        register(6, ClientVolumePayload.class, (out, payload) -> out.name("volume").value(payload.getVolume()));
+        register(7, NotificationPayload.class, null);
+        register(8, HueColorPayload.class, null);
+
+        // speakers
+        register(9, ClientPlayerLocationPayload.class, (out, payload) -> {
+            out.name("x").value(payload.getX());
+            out.name("y").value(payload.getY());
+            out.name("z").value(payload.getZ());
+            out.name("pitch").value(payload.getPitch());
+            out.name("yaw").value(payload.getYaw());
+            // only clients that extrapolate get motion, leave it out for everyone else
+            if (payload.hasMotion()) {
+                out.name("velocityX").value(payload.getVelocityX());
+                out.name("velocityY").value(payload.getVelocityY());
+                out.name("velocityZ").value(payload.getVelocityZ());
+                out.name("yawRate").value(payload.getYawRate());
+            }
+        });
+        register(10, ClientSpeakerCreatePayload.class, (out, payload) -> writeSpeaker(out, payload.getClientSpeaker()));
+        register(11, ClientSpeakerDestroyPayload.class, (out, payload) -> writeSpeaker(out, payload.getClientSpeaker()));
+        register(12, ClientSpeakerObstructionPayload.class, (out, payload) -> {
+            out.name("id").value(payload.getId());
+            out.name("obstructions").value(payload.getObstructions());
+        });
+
+        // voice
+        register(13, ClientVoiceChatUnlockPayload.class, null);
+        register(14, ClientVoiceDropPayload.class, null);
+        register(15, ClientVoiceSubscribePayload.class, null);
+        register(16, ClientVoiceUpdatePeerLocationsPayload.class, (out, payload) -> {
+            out.name("updateSet");
+            if (payload.getUpdateSet() == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (ClientRtcLocationUpdate update : payload.getUpdateSet()) {
+                out.beginObject();
+                out.name("streamKey").value(update.getStreamKey());
+                out.name("x").value(update.getX());
+                out.name("y").value(update.getY());
+                out.name("z").value(update.getZ());
+                out.endObject();
+            }
+            out.endArray();
+        });
+        register(17, ClientVoiceChatToggleMicrophonePayload.class, null);
+
+        // batches
+        register(18, ClientPacketBatchPayload.class, (out, payload) -> {
+            out.name("packets");
+            if (payload.getPackets() == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (AbstractPacketPayload packet : payload.getPackets()) writePayload(out, packet);
+            out.endArray();
+        });
+        register(19, ClientBinaryPayload.class, (out, payload) -> out.name("data").value(payload.getData()));
+
+        // relay traffic, the relay only knows these by their class name
+        register(PayloadCodec.NAMED, AcknowledgeClientPayload.class, null);
+        register(PayloadCodec.NAMED, ClientConnectionPayload.class, null);
+        register(PayloadCodec.NAMED, ClientDisconnectPayload.class, null);
+        register(PayloadCodec.NAMED, UpdateServerTimePayload.class, null);
+        register(PayloadCodec.NAMED, ClientChangedVolumePayload.class, null);
+        register(PayloadCodec.NAMED, ClientEnabledHuePayload.class, null);
+        register(PayloadCodec.NAMED, ClientFailedMediaPayload.class, null);
+        register(PayloadCodec.NAMED, ClientOpenedRtcPayload.class, null);
+        register(PayloadCodec.NAMED, ClientUpdateChannelListPayload.class, null);
+    }
+
+    private static <T extends AbstractPacketPayload> void register(int id, Class<T> type, PayloadWriter<T> writer) {
+        PayloadCodec<T> codec = new PayloadCodec<>(id, type, writer);
+        byClass.put(type, codec);
+        byName.put(type.getName(), codec);
+        // the relay uses names relative to the payload package
+        byName.put(type.getName().substring(PAYLOAD_PACKAGE.length()), codec);
+        if (id != PayloadCodec.NAMED) byId[id] = codec;
+    }
+
+    private static void writeSpeaker(JsonWriter out, ClientSpeaker speaker) throws IOException {
+        out.name("clientSpeaker");
+        if (speaker == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("location");
+        if (speaker.getLocation() == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("x").value(speaker.getLocation().getX());
+            out.name("y").value(speaker.getLocation().getY());
+            out.name("z").value(speaker.getLocation().getZ());
+            out.endObject();
+        }
+        out.name("type").value(speaker.getType() == null ? null : speaker.getType().name());
+        out.name("id").value(speaker.getId());
+        out.name("source").value(speaker.getSource());
+        out.name("maxDistance").value(speaker.getMaxDistance());
+        out.name("startInstant").value(speaker.getStartInstant());
+        out.name("obstructions").value(speaker.getObstructions());
+        out.endObject();
+    }
+
+    /**
+     * Write a payload with its type, as {type, payload}
+     */
+    public static void writePayload(JsonWriter out, AbstractPacketPayload payload) throws IOException {
+        if (payload == null) {
+            out.nullValue();
+            return;
+        }
+
+        PayloadCodec<?> codec = byClass.get(payload.getClass());
+        out.beginObject();
+        out.name("type");
+        if (codec == null || codec.isNamed()) {
+            out.value(payload.getClass().getName());
+        } else {
+            out.value(codec.getId());
+        }
+
+        out.name("payload");
+        if (codec == null) {
+            writeUnregistered(out, payload);
+        } else {
+            codec.write(out, payload);
+        }
+        out.endObject();
+    }
+
+    /**
+     * Read a payload written as {type, payload}, where the type is either an id or a class name
+     */
+    public static AbstractPacketPayload readPayload(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Class<? extends AbstractPacketPayload> type = null;
+        PayloadCodec<?> codec = null;
+        AbstractPacketPayload payload = null;
+        JsonElement bufferedPayload = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals("type")) {
+                if (in.peek() == JsonToken.NUMBER) {
+                    int id = in.nextInt();
+                    codec = id >= 0 && id < byId.length ? byId[id] : null;
+                    if (codec == null) throw new JsonParseException("Unknown payload id: " + id);
+                } else {
+                    String typeName = in.nextString();
+                    codec = byName.get(typeName);
+                    if (codec == null) type = resolveUnregistered(typeName);
+                }
+            } else if (name.equals("payload")) {
+                if (codec != null) {
+                    payload = codec.read(in);
+                } else if (type != null) {
+                    payload = OpenAudioMc.getGson().getAdapter(type).read(in);
+                } else {
+                    // the type comes after the payload, so it can't be streamed
+                    bufferedPayload = OpenAudioMc.getGson().getAdapter(JsonElement.class).read(in);
+                }
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (bufferedPayload != null) {
+            Class<? extends AbstractPacketPayload> bufferedType = codec != null ? codec.getType() : type;
+            if (bufferedType == null) throw new JsonParseException("Payload without a type");
+            payload = OpenAudioMc.getGson().fromJson(bufferedPayload, bufferedType);
+        }
+        return payload;
+    }
+
+    private static <T extends AbstractPacketPayload> void writeUnregistered(JsonWriter out, T payload) throws IOException {
+        // getClass() is typed as Class<? extends AbstractPacketPayload>, but it's always the class of T itself
+        @SuppressWarnings("unchecked") Class<T> type = (Class<T>) payload.getClass();
+        OpenAudioMc.getGson().getAdapter(type).write(out, payload);
+    }
+
+    private static Class<? extends AbstractPacketPayload> resolveUnregistered(String typeName) {
+        Class<? extends AbstractPacketPayload> type = unregistered.get(typeName);
+        if (type != null) return type;
+
+        String className = typeName.contains("com.craftmend.openaudiomc") ? typeName : PAYLOAD_PACKAGE + typeName;
+        try {
+            type = Class.forName(className).asSubclass(AbstractPacketPayload.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new JsonParseException("Unknown element type: " + typeName, e);
+        }
+        unregistered.put(typeName, type);
+        return type;
+    }
+
+}
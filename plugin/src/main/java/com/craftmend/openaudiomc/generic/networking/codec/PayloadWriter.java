@@ -0,0 +1,16 @@
+package com.craftmend.openaudiomc.generic.networking.codec;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes the fields of a payload straight to the output stream, without reflection or building a json tree first
+ *
+ * @param <T> payload type
+ */
+public interface PayloadWriter<T> {
+
+    void write(JsonWriter out, T payload) throws IOException;
+
+}
@@ -0,0 +1,61 @@
+package com.craftmend.openaudiomc.generic.networking.codec.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Growable byte buffer with the primitives of the binary wire protocol.
+ * Numbers are written as (zigzag) varints, coordinates as fixed point numbers with one decimal.
+ */
+public class BinaryBuffer {
+
+    // locations are already rounded to one decimal before they get sent, so this doesn't lose anything
+    public static final int FIXED_POINT_SCALE = 10;
+
+    private byte[] bytes = new byte[64];
+    private int size = 0;
+
+    public BinaryBuffer writeByte(int value) {
+        ensure(1);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    public BinaryBuffer writeVarInt(long value) {
+        if (value < 0) throw new IllegalArgumentException("Unsigned varints can't be negative, use writeSignedVarInt instead");
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    public BinaryBuffer writeSignedVarInt(long value) {
+        return writeVarInt((value << 1) ^ (value >> 63));
+    }
+
+    public BinaryBuffer writeFixed(double value) {
+        return writeSignedVarInt(Math.round(value * FIXED_POINT_SCALE));
+    }
+
+    public BinaryBuffer writeString(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(encoded.length);
+        ensure(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+        return this;
+    }
+
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, size));
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.craftmend.openaudiomc.generic.networking.codec.binary;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientRtcLocationUpdate;
+import com.craftmend.openaudiomc.generic.networking.packets.client.binary.PacketClientBinary;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientPlayerLocationPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerCreatePayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerDestroyPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.ClientSpeaker;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceUpdatePeerLocationsPayload;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes the high frequency packets of a single client in the compact binary protocol (see BinaryDecoder.js).
+ * Only used after the client said it understands it, everything else (and every packet before that) stays json.
+ *
+ * Strings like sources, speaker ids and stream keys are interned per connection. The first time a string is sent it
+ * gets the next id and is sent in full, after that only its id goes over the wire. That means encoded packets have to
+ * reach the client in the same order as they were encoded, which is why this happens while the outbox gets flushed.
+ */
+public class BinaryPacketEncoder {
+
+    // the revision of the binary protocol that this version of the plugin speaks
+    public static final int REVISION = 2;
+    // the first revision where the client extrapolates the player location from its velocity
+    public static final int MOTION_REVISION = 2;
+    // strings after this will just be sent in full every time
+    public static final int MAX_INTERNED_STRINGS = 4096;
+
+    private static final int PLAYER_LOCATION = 1;
+    private static final int SPEAKER_CREATE = 2;
+    private static final int SPEAKER_DESTROY = 3;
+    private static final int PEER_LOCATIONS = 4;
+    private static final int PLAYER_MOTION = 5;
+
+    private final Map<String, Integer> interned = new HashMap<>();
+    private int revision = 0;
+
+    /**
+     * @param clientRevision the highest binary revision the client supports, 0 if none
+     */
+    public synchronized void negotiate(int clientRevision) {
+        int agreed = Math.max(0, Math.min(clientRevision, REVISION));
+        if (agreed == revision) return;
+        revision = agreed;
+        interned.clear();
+    }
+
+    /**
+     * Go back to json, the next client session has to negotiate again
+     */
+    public synchronized void reset() {
+        revision = 0;
+        interned.clear();
+    }
+
+    public synchronized boolean isEnabled() {
+        return revision != 0;
+    }
+
+    /**
+     * @return true if the client extrapolates its own location, so it only needs corrections
+     */
+    public synchronized boolean supportsMotion() {
+        return revision >= MOTION_REVISION;
+    }
+
+    /**
+     * @param packet packet that's about to be sent
+     * @return the binary version of the packet, or the same packet if it should stay json
+     */
+    public synchronized AbstractPacket encode(AbstractPacket packet) {
+        if (revision == 0) return packet;
+        AbstractPacketPayload data = packet.getData();
+        BinaryBuffer buffer = new BinaryBuffer();
+
+        if (data instanceof ClientPlayerLocationPayload) {
+            ClientPlayerLocationPayload location = (ClientPlayerLocationPayload) data;
+            boolean motion = location.hasMotion() && revision >= MOTION_REVISION;
+            buffer.writeByte(motion ? PLAYER_MOTION : PLAYER_LOCATION)
+                    .writeFixed(location.getX())
+                    .writeFixed(location.getY())
+                    .writeFixed(location.getZ())
+                    .writeSignedVarInt(location.getPitch())
+                    .writeSignedVarInt(location.getYaw());
+            if (motion) {
+                buffer.writeFixed(location.getVelocityX())
+                        .writeFixed(location.getVelocityY())
+                        .writeFixed(location.getVelocityZ())
+                        .writeSignedVarInt(location.getYawRate());
+            }
+        } else if (data instanceof ClientSpeakerCreatePayload) {
+            ClientSpeaker speaker = ((ClientSpeakerCreatePayload) data).getClientSpeaker();
+            if (!isComplete(speaker)) return packet;
+            writeSpeaker(buffer.writeByte(SPEAKER_CREATE), speaker);
+        } else if (data instanceof ClientSpeakerDestroyPayload) {
+            ClientSpeaker speaker = ((ClientSpeakerDestroyPayload) data).getClientSpeaker();
+            if (!isComplete(speaker)) return packet;
+            writeSpeaker(buffer.writeByte(SPEAKER_DESTROY), speaker);
+        } else if (data instanceof ClientVoiceUpdatePeerLocationsPayload) {
+            ClientVoiceUpdatePeerLocationsPayload peers = (ClientVoiceUpdatePeerLocationsPayload) data;
+            if (peers.getUpdateSet() == null) return packet;
+            for (ClientRtcLocationUpdate update : peers.getUpdateSet()) {
+                if (update == null || update.getStreamKey() == null) return packet;
+            }
+
+            buffer.writeByte(PEER_LOCATIONS).writeVarInt(peers.getUpdateSet().size());
+            for (ClientRtcLocationUpdate update : peers.getUpdateSet()) {
+                writeInterned(buffer, update.getStreamKey());
+                buffer.writeFixed(update.getX())
+                        .writeFixed(update.getY())
+                        .writeFixed(update.getZ());
+            }
+        } else {
+            return packet;
+        }
+
+        return new PacketClientBinary(buffer.toBase64());
+    }
+
+    // strings get interned while writing, so everything has to be checked before anything gets written
+    private boolean isComplete(ClientSpeaker speaker) {
+        return speaker != null
+                && speaker.getLocation() != null
+                && speaker.getType() != null
+                && speaker.getId() != null
+                && speaker.getSource() != null;
+    }
+
+    private void writeSpeaker(BinaryBuffer buffer, ClientSpeaker speaker) {
+        buffer.writeFixed(speaker.getLocation().getX())
+                .writeFixed(speaker.getLocation().getY())
+                .writeFixed(speaker.getLocation().getZ())
+                .writeByte(speaker.getType().ordinal());
+        writeInterned(buffer, speaker.getId());
+        writeInterned(buffer, speaker.getSource());
+        buffer.writeVarInt(Math.max(0, speaker.getMaxDistance()))
+                .writeSignedVarInt(speaker.getStartInstant())
+                .writeVarInt(Math.max(0, speaker.getObstructions()));
+    }
+
+    // 0 is a string that isn't interned, anything else is the id + 1. An id that the client doesn't know yet is the next one
+    private void writeInterned(BinaryBuffer buffer, String value) {
+        Integer id = interned.get(value);
+        if (id != null) {
+            buffer.writeVarInt(id + 1);
+            return;
+        }
+
+        if (interned.size() >= MAX_INTERNED_STRINGS) {
+            buffer.writeVarInt(0).writeString(value);
+            return;
+        }
+
+        id = interned.size();
+        interned.put(value, id);
+        buffer.writeVarInt(id + 1).writeString(value);
+    }
+
+}
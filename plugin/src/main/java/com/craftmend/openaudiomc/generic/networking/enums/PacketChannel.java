@@ -34,6 +34,9 @@ public enum PacketChannel {
     CLIENT_OUT_PLAYER_LOCATION,
     CLIENT_OUT_SPEAKER_CREATE,
     CLIENT_OUT_SPEAKER_DESTROY,
+    CLIENT_OUT_SPEAKER_OBSTRUCTIONS,
+    CLIENT_OUT_PACKET_BATCH, // multiple client packets in a single frame
+    CLIENT_OUT_BINARY, // a packet in the compact binary protocol
 
     // voice chat
     CLIENT_OUT_VOICE_UNLOCK,
@@ -12,6 +12,7 @@ public class ClientChangedVolumeHandler extends PayloadHandler<ClientChangedVolu
         Authenticatable authenticatable = findSession(payload.getClient());
         if (authenticatable instanceof ClientConnection) {
             ((ClientConnection) authenticatable).updatedVolume(payload.getVolume());
+            ((ClientConnection) authenticatable).getBinaryEncoder().negotiate(payload.getBinaryRevision());
         } else {
             // you don't even have volume
             authenticatable.kickConnection();
@@ -0,0 +1,82 @@
+package com.craftmend.openaudiomc.generic.networking.io;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
+import com.craftmend.openaudiomc.generic.networking.interfaces.Authenticatable;
+import com.craftmend.openaudiomc.generic.networking.packets.client.batch.PacketClientBatch;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects the packets that are sent to a single client during a tick, so they can go out as one batched frame
+ * instead of a socket message per packet. Flushing holds the lock while sending, so packets always arrive in the
+ * order they were sent, even when an urgent packet forces a flush from another thread.
+ *
+ * Clients that negotiated the binary protocol get their packets encoded here, since the interned strings only work
+ * when packets are encoded in the same order as they're sent.
+ *
+ * When the relay frames get aggregated, packets aren't wrapped in a batch. The frame already combines everything,
+ * and a batch per client would stop the aggregator from sharing the same packet between clients.
+ */
+public class ClientOutbox {
+
+    // the amount of packets that may be buffered before the outbox gets flushed right away
+    public static final int MAX_BATCH_SIZE = 64;
+
+    @Getter private final Authenticatable client;
+    private final boolean batch;
+    private List<AbstractPacket> pending = new ArrayList<>();
+
+    /**
+     * @param client target
+     * @param batch  combine the buffered packets into a single batch packet when flushing
+     */
+    public ClientOutbox(Authenticatable client, boolean batch) {
+        this.client = client;
+        this.batch = batch;
+    }
+
+    /**
+     * @param packet packet to buffer
+     * @return true if the outbox is full, and should be flushed
+     */
+    public synchronized boolean add(AbstractPacket packet) {
+        pending.add(packet);
+        return pending.size() >= MAX_BATCH_SIZE;
+    }
+
+    /**
+     * Send everything that's buffered, followed by an optional packet that shouldn't wait
+     *
+     * @param sender sends a single packet over the socket
+     * @param urgent packet to send after the buffer, can be null
+     */
+    public synchronized void flush(Consumer<AbstractPacket> sender, AbstractPacket urgent) {
+        if (!pending.isEmpty()) {
+            List<AbstractPacket> packets = pending;
+            pending = new ArrayList<>();
+
+            if (!batch) {
+                for (AbstractPacket packet : packets) sender.accept(encode(packet));
+            } else if (packets.size() == 1) {
+                sender.accept(encode(packets.get(0)));
+            } else {
+                List<AbstractPacketPayload> payloads = new ArrayList<>(packets.size());
+                for (AbstractPacket packet : packets) payloads.add(encode(packet).getData());
+                sender.accept(new PacketClientBatch(payloads));
+            }
+        }
+
+        if (urgent != null) sender.accept(urgent);
+    }
+
+    private AbstractPacket encode(AbstractPacket packet) {
+        if (!(client instanceof ClientConnection)) return packet;
+        return ((ClientConnection) client).getBinaryEncoder().encode(packet);
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.craftmend.openaudiomc.generic.networking.io;
+
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.enums.PacketChannel;
+import com.craftmend.openaudiomc.generic.networking.interfaces.Authenticatable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+
+/**
+ * Moves everything that happens after a packet gets sent (serialization and the actual emit) off the thread
+ * that sent it. Senders only put the packet on a lock free queue, a single writer thread takes them off in order
+ * and hands them to the consumer. The writer also runs the flusher at a fixed interval.
+ *
+ * The queue is kept small in two ways:
+ * - packets on a merge channel replace (or merge into) the one that's still queued for the same client,
+ *   so a client never has more than one location update waiting. The merged packet moves to the back of the queue,
+ *   so it can't overtake anything that got sent before it
+ * - lossy packets get dropped when the client is over its high-water mark, or the whole queue is over its limit.
+ *   Everything else is always accepted, since losing media or speaker packets would break the client until it reconnects
+ */
+public class OutboundQueue {
+
+    public static final int CLIENT_HIGH_WATER_MARK = 256;
+    public static final int MAX_QUEUED_PACKETS = 8192;
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Map<UUID, Integer> queuedPerClient = new ConcurrentHashMap<>();
+    private final Map<PacketChannel, BinaryOperator<AbstractPacket>> mergers = new EnumMap<>(PacketChannel.class);
+    private final Map<PacketChannel, Map<UUID, Entry>> mergeSlots = new EnumMap<>(PacketChannel.class);
+    private final Set<PacketChannel> lossyChannels;
+    private final BiConsumer<Authenticatable, AbstractPacket> consumer;
+    private final Runnable flusher;
+
+    private volatile boolean running = true;
+    private final AtomicBoolean warnedOverflow = new AtomicBoolean(false);
+    private Thread writer;
+
+    /**
+     * @param consumer      handles a packet on the writer thread
+     * @param flusher       runs on the writer thread every 50ms
+     * @param lossyChannels channels that may be dropped under pressure
+     */
+    public OutboundQueue(BiConsumer<Authenticatable, AbstractPacket> consumer, Runnable flusher, Set<PacketChannel> lossyChannels) {
+        this.consumer = consumer;
+        this.flusher = flusher;
+        this.lossyChannels = lossyChannels;
+    }
+
+    /**
+     * Merge packets on a channel while they're waiting, should be called before the queue starts
+     *
+     * @param channel channel
+     * @param merger  combines the queued packet (first) with a newer one (second)
+     */
+    public void registerMerger(PacketChannel channel, BinaryOperator<AbstractPacket> merger) {
+        mergers.put(channel, merger);
+        mergeSlots.put(channel, new ConcurrentHashMap<>());
+    }
+
+    public void start() {
+        writer = new Thread(this::run, "OpenAudioMc-Outbound");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @param client target
+     * @param packet packet
+     * @param urgent wake up the writer, instead of letting it wait for the next flush
+     */
+    public void enqueue(Authenticatable client, AbstractPacket packet, boolean urgent) {
+        UUID owner = client.getOwnerUUID();
+        PacketChannel channel = packet.getPacketChannel();
+
+        Map<UUID, Entry> slots = mergeSlots.get(channel);
+        if (slots != null) {
+            BinaryOperator<AbstractPacket> merger = mergers.get(channel);
+            Entry[] merged = {null};
+            slots.computeIfPresent(owner, (uuid, waiting) -> {
+                // the writer removes the slot before it takes the packet, so a waiting entry is always still queued
+                if (waiting.client != client) return waiting;
+                merged[0] = new Entry(client, channel, merger.apply(waiting.packet, packet), null);
+                // the old entry stays in the queue, but gets skipped
+                waiting.packet = null;
+                return merged[0];
+            });
+            if (merged[0] != null) {
+                add(owner, merged[0], urgent);
+                return;
+            }
+        }
+
+        if (lossyChannels.contains(channel) && isUnderPressure(owner)) return;
+
+        Entry entry = new Entry(client, channel, packet, null);
+        if (slots != null) slots.put(owner, entry);
+        add(owner, entry, urgent);
+    }
+
+    private void add(UUID owner, Entry entry, boolean urgent) {
+        queuedPerClient.merge(owner, 1, Integer::sum);
+        queued.incrementAndGet();
+        queue.add(entry);
+        if (urgent) LockSupport.unpark(writer);
+    }
+
+    /**
+     * Run a task on the writer thread, after everything that's already queued
+     *
+     * @param task task
+     */
+    public void execute(Runnable task) {
+        queue.add(new Entry(null, null, null, task));
+    }
+
+    /**
+     * Stop the writer thread and handle everything that's still queued on the calling thread
+     */
+    public void shutdown() {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // it's still busy, draining from here as well would send packets twice or out of order
+            if (writer.isAlive()) {
+                OpenAudioLogger.toConsole("The outbound packet writer didn't stop in time, " + queued.get() + " packets might not be sent.");
+                return;
+            }
+        }
+        drain();
+        flusher.run();
+    }
+
+    private boolean isUnderPressure(UUID owner) {
+        if (queued.get() >= MAX_QUEUED_PACKETS) {
+            if (warnedOverflow.compareAndSet(false, true)) {
+                OpenAudioLogger.toConsole("The outbound packet queue is full, location updates will be dropped until the connection catches up.");
+            }
+            return true;
+        }
+        return queuedPerClient.getOrDefault(owner, 0) >= CLIENT_HIGH_WATER_MARK;
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime() + FLUSH_INTERVAL;
+        while (running) {
+            drain();
+
+            if (System.nanoTime() - nextFlush >= 0) {
+                try {
+                    flusher.run();
+                } catch (Exception e) {
+                    OpenAudioLogger.toConsole("Failed to flush outbound packets");
+                    e.printStackTrace();
+                }
+                nextFlush = System.nanoTime() + FLUSH_INTERVAL;
+            }
+
+            LockSupport.parkNanos(this, Math.max(0, nextFlush - System.nanoTime()));
+        }
+    }
+
+    private void drain() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            try {
+                if (entry.task != null) {
+                    entry.task.run();
+                } else {
+                    AbstractPacket packet = take(entry);
+                    // null if it got merged into a newer entry
+                    if (packet != null) consumer.accept(entry.client, packet);
+                }
+            } catch (Exception e) {
+                OpenAudioLogger.toConsole("Failed to send an outbound packet");
+                e.printStackTrace();
+            }
+        }
+        if (queued.get() < MAX_QUEUED_PACKETS / 2) warnedOverflow.set(false);
+    }
+
+    private AbstractPacket take(Entry entry) {
+        UUID owner = entry.client.getOwnerUUID();
+        // merged away entries still count as queued, so they always have to be counted down
+        queuedPerClient.computeIfPresent(owner, (uuid, count) -> count <= 1 ? null : count - 1);
+        queued.decrementAndGet();
+
+        AbstractPacket packet = entry.packet;
+        // the slot already belongs to the entry it got merged into
+        if (packet == null) return null;
+
+        Map<UUID, Entry> slots = mergeSlots.get(entry.channel);
+        // close the slot first, so nothing can merge into this entry after it got taken
+        if (slots != null) {
+            slots.remove(owner, entry);
+            // it might have been merged away right before the slot closed
+            packet = entry.packet;
+        }
+        return packet;
+    }
+
+    private static final class Entry {
+        private final Authenticatable client;
+        private final PacketChannel channel;
+        private volatile AbstractPacket packet;
+        private final Runnable task;
+
+        private Entry(Authenticatable client, PacketChannel channel, AbstractPacket packet, Runnable task) {
+            this.client = client;
+            this.channel = channel;
+            this.packet = packet;
+            this.task = task;
+        }
+    }
+
+}
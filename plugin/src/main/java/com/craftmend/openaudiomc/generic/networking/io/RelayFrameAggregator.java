@@ -0,0 +1,98 @@
+package com.craftmend.openaudiomc.generic.networking.io;
+
+import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+
+import java.util.*;
+
+/**
+ * Combines the packets for all clients into a single multi-recipient frame for the relay.
+ * Packets with the same channel and payload are serialized and shipped once, with a list of all players that should
+ * receive them, so a show or region broadcast becomes one entry instead of one message per player.
+ *
+ * Packets for the same client always stay in the order they were added. A packet only joins an existing entry if that
+ * entry comes after everything else the client already got in this frame.
+ */
+public class RelayFrameAggregator {
+
+    // the amount of packets after which the frame should be flushed right away
+    public static final int MAX_FRAME_PACKETS = 1024;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, List<Entry>> entriesByContent = new HashMap<>();
+    private final Map<UUID, Integer> lastEntry = new HashMap<>();
+    // the same packet instance is often sent to a lot of players, so only serialize it once
+    private final Map<AbstractPacket, String> serialized = new IdentityHashMap<>();
+    private int packets = 0;
+
+    /**
+     * @param client recipient
+     * @param packet packet
+     * @return true if the frame is full, and should be flushed
+     */
+    public synchronized boolean add(UUID client, AbstractPacket packet) {
+        String data = serialized.computeIfAbsent(packet, p -> OpenAudioMc.getGson().toJson(p.getData(), AbstractPacketPayload.class));
+        String content = packet.getPacketChannel().name() + data;
+        int after = lastEntry.getOrDefault(client, -1);
+
+        Entry target = null;
+        List<Entry> candidates = entriesByContent.get(content);
+        if (candidates != null) {
+            // the most recent one is the most likely to come after the last packet of this client
+            Entry candidate = candidates.get(candidates.size() - 1);
+            if (candidate.index > after) target = candidate;
+        }
+
+        if (target == null) {
+            target = new Entry(entries.size(), packet.getPacketChannel().name(), data);
+            entries.add(target);
+            entriesByContent.computeIfAbsent(content, c -> new ArrayList<>(1)).add(target);
+        }
+
+        target.recipients.add(client);
+        lastEntry.put(client, target.index);
+        return ++packets >= MAX_FRAME_PACKETS;
+    }
+
+    /**
+     * @return the json frame with everything that got added since the last drain, or null if there's nothing to send
+     */
+    public synchronized String drain() {
+        if (entries.isEmpty()) return null;
+
+        StringBuilder frame = new StringBuilder("{\"frames\":[");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (i != 0) frame.append(',');
+            frame.append("{\"packetChannel\":\"").append(entry.channel).append("\",\"data\":").append(entry.data).append(",\"recipients\":[");
+            for (int r = 0; r < entry.recipients.size(); r++) {
+                if (r != 0) frame.append(',');
+                frame.append('"').append(entry.recipients.get(r)).append('"');
+            }
+            frame.append("]}");
+        }
+        frame.append("]}");
+
+        entries.clear();
+        entriesByContent.clear();
+        lastEntry.clear();
+        serialized.clear();
+        packets = 0;
+        return frame.toString();
+    }
+
+    private static final class Entry {
+        private final int index;
+        private final String channel;
+        private final String data;
+        private final List<UUID> recipients = new ArrayList<>();
+
+        private Entry(int index, String channel, String data) {
+            this.index = index;
+            this.channel = channel;
+            this.data = data;
+        }
+    }
+
+}
@@ -43,6 +43,8 @@ public class SocketIoConnector {
     private boolean registeredLogout = false;
     @Getter private UUID lastUsedRelay = UUID.randomUUID();
     private ServerKeySet keySet;
+    @Getter private final boolean aggregateFrames = StorageKey.SETTINGS_RELAY_AGGREGATION.getBoolean();
+    private final RelayFrameAggregator frameAggregator = new RelayFrameAggregator();
 
     private final SocketDriver[] drivers = new SocketDriver[]{
             new SystemDriver(),
@@ -166,10 +168,40 @@ public class SocketIoConnector {
     }
 
     public void send(Authenticatable client, AbstractPacket packet) {
+        send(client, packet, false);
+    }
+
+    /**
+     * @param client    target
+     * @param packet    packet
+     * @param immediate true to skip frame aggregation, for packets that are read by the relay or can't wait
+     */
+    public void send(Authenticatable client, AbstractPacket packet, boolean immediate) {
         // only send the packet if the client is online, valid and the plugin is connected
         if (client.getIsConnected() && OpenAudioMc.getInstance().getStateService().getCurrentState().isConnected()) {
+            if (aggregateFrames && !immediate) {
+                if (frameAggregator.add(client.getOwnerUUID(), packet)) flushFrames();
+                return;
+            }
+
+            // everything that was aggregated before this packet has to arrive first
+            if (aggregateFrames) flushFrames();
             packet.setClient(client.getOwnerUUID());
             socket.emit("data", OpenAudioMc.getGson().toJson(packet));
         }
     }
+
+    /**
+     * Send all aggregated packets as a single multi-recipient frame, does nothing when aggregation is disabled
+     */
+    public void flushFrames() {
+        if (!aggregateFrames) return;
+        // hold the lock while emitting, so frames can't overtake each other
+        synchronized (frameAggregator) {
+            String frame = frameAggregator.drain();
+            if (frame != null && socket != null && OpenAudioMc.getInstance().getStateService().getCurrentState().isConnected()) {
+                socket.emit("data-frame", frame);
+            }
+        }
+    }
 }
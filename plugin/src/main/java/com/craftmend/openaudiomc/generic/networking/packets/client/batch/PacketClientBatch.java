@@ -0,0 +1,16 @@
+package com.craftmend.openaudiomc.generic.networking.packets.client.batch;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import com.craftmend.openaudiomc.generic.networking.enums.PacketChannel;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.batch.ClientPacketBatchPayload;
+
+import java.util.List;
+
+public class PacketClientBatch extends AbstractPacket {
+
+    public PacketClientBatch(List<AbstractPacketPayload> packets) {
+        super(new ClientPacketBatchPayload(packets), PacketChannel.CLIENT_OUT_PACKET_BATCH, null);
+    }
+
+}
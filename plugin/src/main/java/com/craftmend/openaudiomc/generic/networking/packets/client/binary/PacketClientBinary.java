@@ -0,0 +1,13 @@
+package com.craftmend.openaudiomc.generic.networking.packets.client.binary;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.enums.PacketChannel;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.binary.ClientBinaryPayload;
+
+public class PacketClientBinary extends AbstractPacket {
+
+    public PacketClientBinary(String data) {
+        super(new ClientBinaryPayload(data), PacketChannel.CLIENT_OUT_BINARY, null);
+    }
+
+}
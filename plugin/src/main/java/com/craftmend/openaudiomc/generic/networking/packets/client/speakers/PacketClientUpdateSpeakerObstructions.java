@@ -0,0 +1,17 @@
+package com.craftmend.openaudiomc.generic.networking.packets.client.speakers;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
+import com.craftmend.openaudiomc.generic.networking.enums.PacketChannel;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerObstructionPayload;
+
+public class PacketClientUpdateSpeakerObstructions extends AbstractPacket {
+
+    public PacketClientUpdateSpeakerObstructions(ClientSpeakerObstructionPayload payload) {
+        super(
+                payload,
+                PacketChannel.CLIENT_OUT_SPEAKER_OBSTRUCTIONS,
+                null
+        );
+    }
+
+}
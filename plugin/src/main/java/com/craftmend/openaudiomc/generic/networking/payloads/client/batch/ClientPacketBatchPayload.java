@@ -0,0 +1,18 @@
+package com.craftmend.openaudiomc.generic.networking.payloads.client.batch;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientPacketBatchPayload extends AbstractPacketPayload {
+
+    // handled by the client in this exact order
+    private List<AbstractPacketPayload> packets;
+
+}
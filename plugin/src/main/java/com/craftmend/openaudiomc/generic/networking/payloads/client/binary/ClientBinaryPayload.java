@@ -0,0 +1,16 @@
+package com.craftmend.openaudiomc.generic.networking.payloads.client.binary;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientBinaryPayload extends AbstractPacketPayload {
+
+    // base64 encoded binary packet, see BinaryPacketEncoder
+    private String data;
+
+}
@@ -2,7 +2,9 @@ package com.craftmend.openaudiomc.generic.networking.payloads.client.speakers;
 
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
+@Getter
 @AllArgsConstructor
 public class ClientPlayerLocationPayload extends AbstractPacketPayload {
 
@@ -12,4 +14,18 @@ public class ClientPlayerLocationPayload extends AbstractPacketPayload {
     private final int pitch;
     private final int yaw;
 
+    // blocks and degrees per second, the client keeps moving the player along these until the next update
+    private final double velocityX;
+    private final double velocityY;
+    private final double velocityZ;
+    private final int yawRate;
+
+    public ClientPlayerLocationPayload(double x, double y, double z, int pitch, int yaw) {
+        this(x, y, z, pitch, yaw, 0, 0, 0, 0);
+    }
+
+    public boolean hasMotion() {
+        return velocityX != 0 || velocityY != 0 || velocityZ != 0 || yawRate != 0;
+    }
+
 }
@@ -4,7 +4,9 @@ import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayl
 import com.craftmend.openaudiomc.generic.networking.payloads.client.interfaces.SourceHolder;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.ClientSpeaker;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
+@Getter
 @AllArgsConstructor
 public class ClientSpeakerCreatePayload extends AbstractPacketPayload implements SourceHolder {
 
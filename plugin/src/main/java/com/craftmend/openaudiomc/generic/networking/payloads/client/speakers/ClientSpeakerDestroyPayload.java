@@ -3,7 +3,9 @@ package com.craftmend.openaudiomc.generic.networking.payloads.client.speakers;
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.ClientSpeaker;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
+@Getter
 @AllArgsConstructor
 public class ClientSpeakerDestroyPayload extends AbstractPacketPayload {
 
@@ -0,0 +1,14 @@
+package com.craftmend.openaudiomc.generic.networking.payloads.client.speakers;
+
+import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ClientSpeakerObstructionPayload extends AbstractPacketPayload {
+
+    private final String id;
+    private final int obstructions;
+
+}
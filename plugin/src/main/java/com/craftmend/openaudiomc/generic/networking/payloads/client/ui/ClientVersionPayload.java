@@ -14,6 +14,8 @@ public class ClientVersionPayload extends AbstractPacketPayload {
     // 3 = enable youtube callbacks
     // 4 = enable client volume updates
     // 5 = enable voice loudness
-    private int protocolRevision = 5;
+    // 6 = batched packets
+    // 7 = binary packets
+    private int protocolRevision = 7;
 
 }
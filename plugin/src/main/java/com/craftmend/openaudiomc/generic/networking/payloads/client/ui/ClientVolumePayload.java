@@ -2,8 +2,10 @@ package com.craftmend.openaudiomc.generic.networking.payloads.client.ui;
 
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacketPayload;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+@Getter
 @NoArgsConstructor
 @AllArgsConstructor
 public class ClientVolumePayload extends AbstractPacketPayload {
@@ -14,5 +14,7 @@ public class ClientChangedVolumePayload extends AbstractPacketPayload {
 
     private int volume;
     private UUID client;
+    // highest binary protocol revision the client understands, missing (0) for older clients
+    private int binaryRevision;
 
 }
@@ -32,8 +32,12 @@ public enum StorageKey {
     SETTINGS_REGIONS_SYNC(false, "options.sync-regions", StorageLocation.CONFIG_FILE),
     SETTINGS_SPEAKER_SYNC(false, "options.sync-speakers", StorageLocation.CONFIG_FILE),
     SETTINGS_SPEAKER_RANGE(false, "options.speaker-radius", StorageLocation.CONFIG_FILE),
+    SETTINGS_SPEAKER_OBSTRUCTION_DISTANCE(false, "options.speaker-obstruction-distance", StorageLocation.CONFIG_FILE),
+    SETTINGS_SPEAKER_BUDGET(false, "options.speaker-budget", StorageLocation.CONFIG_FILE),
     SETTINGS_SEND_URL_ON_JOIN(false, "options.send-on-join", StorageLocation.CONFIG_FILE),
     SETTINGS_USE_WG_PRIORITY(false, "options.use-region-priority", StorageLocation.CONFIG_FILE),
+    SETTINGS_REGION_FALLOFF(false, "options.region-falloff", StorageLocation.CONFIG_FILE),
+    SETTINGS_RELAY_AGGREGATION(false, "options.relay-frame-aggregation", StorageLocation.CONFIG_FILE),
     SETTINGS_PLUS_ACCESS_LEVEL(false, "options.plus-access-level", StorageLocation.CONFIG_FILE),
     SETTINGS_STAFF_TIPS(false, "options.staff-tips", StorageLocation.CONFIG_FILE),
     SETTINGS_NOTIFY_UPDATES(false, "options.notify-updates", StorageLocation.CONFIG_FILE),
@@ -41,6 +45,8 @@ public enum StorageKey {
     SETTINGS_PRELOAD_SOUNDS(false, "options.preload-resources", StorageLocation.CONFIG_FILE),
     SETTINGS_GC_STRATEGY(false, "options.gc-strategy", StorageLocation.CONFIG_FILE),
     SETTINGS_VC_RADIUS(false, "options.voicechat-radius", StorageLocation.CONFIG_FILE),
+    SETTINGS_VC_LOCATION_THRESHOLD(false, "options.voicechat-location-threshold", StorageLocation.CONFIG_FILE),
+    SETTINGS_LOCATION_ERROR_THRESHOLD(false, "options.location-error-threshold", StorageLocation.CONFIG_FILE),
 
     DEBUG_LOG_STATE_CHANGES(false, "debug.log-state-changes", StorageLocation.DATA_FILE),
 
@@ -0,0 +1,160 @@
+package com.craftmend.openaudiomc.generic.utils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keeps track of which elements (speakers, regions, ...) are currently active and computes what entered and left
+ * between two passes in a single linear pass, instead of comparing two lists against each other.
+ *
+ * Usage is always begin(), offer() every currently applicable element, end(), after which getEntered() and getLeft()
+ * hold the deltas until the next begin(). Slots and buffers are reused, so a pass where nothing changed doesn't
+ * allocate anything.
+ *
+ * Elements can also have a version (like the type of a speaker). When an element gets offered with a different version
+ * than it entered with, it counts as both left and entered, so the client drops the old one and creates it again.
+ *
+ * @param <K> key that identifies an element (like a speaker id or region source)
+ * @param <V> element type
+ */
+public class ActiveSet<K, V> {
+
+    private final Function<V, K> keyMapper;
+    private final Function<V, ?> versionMapper;
+    private final Map<K, Slot<V>> slots = new HashMap<>();
+    private final List<V> entered = new ArrayList<>();
+    private final List<V> left = new ArrayList<>();
+    private int generation = 0;
+    private int retained = 0;
+
+    public ActiveSet(Function<V, K> keyMapper) {
+        this(keyMapper, value -> null);
+    }
+
+    /**
+     * @param keyMapper     identifies an element
+     * @param versionMapper part of an element that can't change without re-creating it
+     */
+    public ActiveSet(Function<V, K> keyMapper, Function<V, ?> versionMapper) {
+        this.keyMapper = keyMapper;
+        this.versionMapper = versionMapper;
+    }
+
+    public synchronized void begin() {
+        generation++;
+        retained = 0;
+        entered.clear();
+        left.clear();
+    }
+
+    /**
+     * Mark an element as active for this pass, duplicate keys within the same pass are ignored
+     *
+     * @param value element
+     */
+    public synchronized void offer(V value) {
+        K key = keyMapper.apply(value);
+        Slot<V> slot = slots.get(key);
+        Object version = versionMapper.apply(value);
+        if (slot == null) {
+            slots.put(key, new Slot<>(value, version, generation));
+            entered.add(value);
+            return;
+        }
+
+        if (slot.generation == generation) return;
+        slot.generation = generation;
+        if (!Objects.equals(slot.version, version)) {
+            left.add(slot.value);
+            entered.add(value);
+            slot.value = value;
+            slot.version = version;
+            return;
+        }
+        slot.value = value;
+        retained++;
+    }
+
+    /**
+     * Finish the pass, everything that didn't get offered is removed and put in the left list
+     */
+    public synchronized void end() {
+        // everything that was there before got offered again, so nothing can have left
+        if (retained + entered.size() == slots.size()) return;
+
+        Iterator<Slot<V>> iterator = slots.values().iterator();
+        while (iterator.hasNext()) {
+            Slot<V> slot = iterator.next();
+            if (slot.generation != generation) {
+                left.add(slot.value);
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized boolean hasChanges() {
+        return !entered.isEmpty() || !left.isEmpty();
+    }
+
+    /**
+     * @return elements that became active during the last pass
+     */
+    public List<V> getEntered() {
+        return entered;
+    }
+
+    /**
+     * @return elements that were active but didn't get offered during the last pass
+     */
+    public List<V> getLeft() {
+        return left;
+    }
+
+    public synchronized boolean contains(K key) {
+        return slots.containsKey(key);
+    }
+
+    public synchronized V get(K key) {
+        Slot<V> slot = slots.get(key);
+        return slot == null ? null : slot.value;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * @return a snapshot of all active elements
+     */
+    public synchronized List<V> values() {
+        List<V> values = new ArrayList<>(slots.size());
+        for (Slot<V> slot : slots.values()) values.add(slot.value);
+        return values;
+    }
+
+    /**
+     * Forget all active elements, so they'll all count as entered again during the next pass
+     */
+    public synchronized void clear() {
+        slots.clear();
+        entered.clear();
+        left.clear();
+    }
+
+    private static final class Slot<V> {
+        private V value;
+        private Object version;
+        private int generation;
+
+        private Slot(V value, Object version, int generation) {
+            this.value = value;
+            this.version = version;
+            this.generation = generation;
+        }
+    }
+
+}
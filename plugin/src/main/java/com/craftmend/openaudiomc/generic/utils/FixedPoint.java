@@ -0,0 +1,26 @@
+package com.craftmend.openaudiomc.generic.utils;
+
+/**
+ * Rounding for coordinates that get sent to the client, without going through BigDecimal
+ * (which allocates a couple of objects for every single value)
+ */
+public class FixedPoint {
+
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private FixedPoint() {
+    }
+
+    /**
+     * @param value  value to round
+     * @param places decimal places to keep, up to 6
+     * @return the value rounded half up (away from zero), like BigDecimal's HALF_UP
+     */
+    public static double round(double value, int places) {
+        if (places < 0 || places >= POWERS_OF_TEN.length) throw new IllegalArgumentException("Can't round to " + places + " places");
+
+        double scale = POWERS_OF_TEN[places];
+        return Math.copySign(Math.floor(Math.abs(value) * scale + 0.5) / scale, value);
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.craftmend.openaudiomc.generic.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open addressing hash map with primitive long keys, so lookups don't need to box or allocate keys.
+ * Uses linear probing with backward shift deletion, so there are no tombstones that slow down lookups over time.
+ *
+ * Lookups come from a lot of threads at once (the tick shards, ray tracers) while writes are rare (placing/removing
+ * speakers, loading chunks), so gets are optimistic reads that only take the read lock when a write got in between.
+ * Everything else goes through a StampedLock.
+ *
+ * @param <V> value type
+ */
+public class LongHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile long[] keys;
+    private volatile Object[] values;
+    private int size = 0;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashMap() {
+        this(16);
+    }
+
+    public LongHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            V value = find(key);
+            if (lock.validate(stamp)) return value;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return find(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // may run against a table that is being written to, so it only works on its own copy of the arrays and
+    // never probes more than a full round. The result only counts if the stamp is still valid afterwards.
+    private V find(long key) {
+        long[] keys = this.keys;
+        Object[] values = this.values;
+        int mask = Math.min(keys.length, values.length) - 1;
+        int slot = hash(key) & mask;
+        for (int probed = 0; probed <= mask; probed++) {
+            Object value = values[slot];
+            if (value == null) return null;
+            if (keys[slot] == key) return cast(value);
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @param key   key
+     * @param value value, can't be null
+     * @return the value that was previously stored under the key, or null
+     */
+    public V put(long key, V value) {
+        if (value == null) throw new IllegalArgumentException("Values can't be null");
+        long stamp = lock.writeLock();
+        try {
+            int slot = slot(key);
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    V old = cast(values[slot]);
+                    values[slot] = value;
+                    return old;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size >= resizeAt) rehash(keys.length << 1);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slot(key);
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    V old = cast(values[slot]);
+                    shiftBack(slot);
+                    size--;
+                    return old;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            allocate(16);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return a snapshot of all values
+     */
+    public Collection<V> values() {
+        long stamp = lock.readLock();
+        try {
+            List<V> out = new ArrayList<>(size);
+            for (Object value : values) {
+                if (value != null) out.add(cast(value));
+            }
+            return out;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // values only ever get in through put, so they are always a V
+    @SuppressWarnings("unchecked")
+    private static <V> V cast(Object value) {
+        return (V) value;
+    }
+
+    // close the gap left by a removal by moving entries from the same probe chain back
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) break;
+
+            int home = slot(keys[slot]);
+            // only move the entry if its home slot isn't cyclically between the gap and its current position
+            boolean movable = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (movable) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        long[] newKeys = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        int newMask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) continue;
+            int slot = hash(oldKeys[i]) & newMask;
+            while (newValues[slot] != null) slot = (slot + 1) & newMask;
+            newKeys[slot] = oldKeys[i];
+            newValues[slot] = oldValues[i];
+        }
+        keys = newKeys;
+        values = newValues;
+        mask = newMask;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        return hash(key) & mask;
+    }
+
+    private static int hash(long key) {
+        // murmur3 finalizer, packed block positions have terrible low bits otherwise
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+}
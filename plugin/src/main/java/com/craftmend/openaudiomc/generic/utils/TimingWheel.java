@@ -0,0 +1,80 @@
+package com.craftmend.openaudiomc.generic.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel, keeps a large amount of delayed tasks in a fixed ring of buckets that gets advanced by a single
+ * timer. Scheduling and cancelling are O(1), and every advance only visits the tasks in one bucket,
+ * instead of every delayed task having its own scheduler entry.
+ *
+ * Tasks that are further away than a full rotation wait for a number of rounds in their bucket.
+ * Cancelled tasks are lazily dropped the next time their bucket comes around.
+ */
+public class TimingWheel {
+
+    private final List<List<Timeout>> buckets;
+    private int cursor = 0;
+
+    public TimingWheel(int size) {
+        buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) buckets.add(new ArrayList<>());
+    }
+
+    /**
+     * @param delay amount of advances before the task runs, at least one
+     * @param task  task to run, called from the thread that advances the wheel
+     * @return handle that can be used to cancel the task
+     */
+    public synchronized Timeout schedule(int delay, Runnable task) {
+        delay = Math.max(1, delay);
+        Timeout timeout = new Timeout(task, (delay - 1) / buckets.size());
+        buckets.get((cursor + delay) % buckets.size()).add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Move the wheel one step, and run everything that expired
+     */
+    public void advance() {
+        List<Timeout> expired = new ArrayList<>();
+
+        synchronized (this) {
+            cursor = (cursor + 1) % buckets.size();
+            Iterator<Timeout> iterator = buckets.get(cursor).iterator();
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.cancelled) {
+                    iterator.remove();
+                } else if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                } else {
+                    iterator.remove();
+                    expired.add(timeout);
+                }
+            }
+        }
+
+        // run outside of the lock, so tasks can schedule new ones
+        for (Timeout timeout : expired) {
+            if (!timeout.cancelled) timeout.task.run();
+        }
+    }
+
+    public static final class Timeout {
+        private final Runnable task;
+        private int rounds;
+        private volatile boolean cancelled = false;
+
+        private Timeout(Runnable task, int rounds) {
+            this.task = task;
+            this.rounds = rounds;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+}
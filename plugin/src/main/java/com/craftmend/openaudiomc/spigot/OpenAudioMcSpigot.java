@@ -124,6 +124,8 @@ public final class OpenAudioMcSpigot extends JavaPlugin implements OpenAudioInvo
     public void onDisable() {
         OpenAudioLogger.toConsole("Shutting down");
         predictiveMediaService.onDisable();
+        playerModule.onDisable();
+        speakerModule.onDisable();
         openAudioMc.disable();
         HandlerList.unregisterAll(this);
         OpenAudioLogger.toConsole("Stopped OpenAudioMc. Goodbye.");
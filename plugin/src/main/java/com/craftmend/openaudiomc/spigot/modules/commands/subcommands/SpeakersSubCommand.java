@@ -4,17 +4,14 @@ import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.commands.interfaces.GenericExecutor;
 import com.craftmend.openaudiomc.generic.storage.interfaces.ConfigurationImplementation;
 import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
-import com.craftmend.openaudiomc.generic.storage.enums.StorageLocation;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.generic.commands.interfaces.SubCommand;
 import com.craftmend.openaudiomc.generic.commands.objects.Argument;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
 import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
-import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.SpeakerSettings;
-import com.craftmend.openaudiomc.spigot.modules.speakers.tasks.SpeakerGarbageCollection;
 import com.craftmend.openaudiomc.spigot.modules.speakers.utils.SpeakerUtils;
 import com.craftmend.openaudiomc.spigot.services.server.enums.ServerVersion;
 import org.bukkit.*;
@@ -44,7 +41,7 @@ public class SpeakersSubCommand extends SubCommand {
                 new Argument("remove <world> <x> <y> <z>",
                         "Delete a speaker on a location"),
 
-                new Argument("gc", "Forcefully run a full garbage collection sweep.")
+                new Argument("gc", "Forcefully validate all speakers in loaded chunks again.")
         );
         this.openAudioMcSpigot = openAudioMcSpigot;
     }
@@ -57,12 +54,11 @@ public class SpeakersSubCommand extends SubCommand {
         }
 
         if (args[0].equalsIgnoreCase("gc")) {
-            message(sender, "Starting garbage collector...");
-            SpeakerGarbageCollection sgc = new SpeakerGarbageCollection();
-            // run the wrapper twice to force a cache refresh at the end
-            sgc.run();
-            sgc.run();
-            message(sender, "Full garbage collection sweep finished");
+            int queued = 0;
+            for (World world : Bukkit.getWorlds()) {
+                queued += openAudioMcSpigot.getSpeakerModule().getValidationTask().queueLoadedChunks(world, true);
+            }
+            message(sender, "Queued " + queued + " speakers in loaded chunks for validation, corrupted speakers will be removed over the next few ticks");
             return;
         }
 
@@ -105,16 +101,10 @@ public class SpeakersSubCommand extends SubCommand {
             ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
             int range = config.getInt(StorageKey.SETTINGS_SPEAKER_RANGE);
             SpeakerModule speakerModule = OpenAudioMcSpigot.getInstance().getSpeakerModule();
-            speakerModule.registerSpeaker(mappedLocation, source, id, range, SpeakerModule.DEFAULT_SPEAKER_TYPE, new HashSet<>());
+            Speaker speaker = speakerModule.registerSpeaker(mappedLocation, source, id, range, SpeakerModule.DEFAULT_SPEAKER_TYPE, new HashSet<>());
 
             // save
-            config.setString(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".world", mappedLocation.getWorld());
-            config.setInt(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".x", mappedLocation.getX());
-            config.setInt(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".y", mappedLocation.getY());
-            config.setInt(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".z", mappedLocation.getZ());
-            config.setInt(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".radius", range);
-            config.setString(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".media", source);
-            config.setString(StorageLocation.DATA_FILE, "speakers." + id.toString() + ".type", SpeakerType.SPEAKER_2D.toString());
+            speakerModule.getStore().save(speaker);
 
             // place block
             Location location = mappedLocation.toBukkit();
@@ -152,13 +142,16 @@ public class SpeakersSubCommand extends SubCommand {
             }
 
             // remove from cache
-            ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
             SpeakerModule speakerModule = OpenAudioMcSpigot.getInstance().getSpeakerModule();
             Speaker speaker = speakerModule.getSpeaker(mappedLocation);
+            if (speaker == null) {
+                message(sender, "There's no speaker at that location");
+                return;
+            }
             speakerModule.unlistSpeaker(mappedLocation);
 
-            // remove from file
-            config.setString(StorageLocation.DATA_FILE,"speakers." + speaker.getId().toString(), null);
+            // remove from the store
+            speakerModule.getStore().delete(speaker);
 
             message(sender, "Removed speaker");
             mappedLocation.toBukkit().getBlock().setType(Material.AIR);
@@ -6,7 +6,9 @@ import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.players.listeners.PlayerConnectionListener;
 import com.craftmend.openaudiomc.spigot.modules.players.listeners.PlayerTeleportationListener;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+import com.craftmend.openaudiomc.spigot.modules.players.tracking.MovementTracker;
 
+import lombok.Getter;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
@@ -15,18 +17,26 @@ import java.util.*;
 public class PlayerModule {
 
     private Map<UUID, SpigotConnection> spigotConnectionMap = new HashMap<>();
+    @Getter private MovementTracker movementTracker;
 
     public PlayerModule(OpenAudioMcSpigot openAudioMcSpigot) {
+        movementTracker = new MovementTracker(openAudioMcSpigot);
         openAudioMcSpigot.getServer().getPluginManager().registerEvents(new PlayerConnectionListener(), openAudioMcSpigot);
         openAudioMcSpigot.getServer().getPluginManager().registerEvents(new PlayerTeleportationListener(), openAudioMcSpigot);
     }
 
+    public void onDisable() {
+        movementTracker.shutdown();
+    }
+
     /**
      * @param player registers the player
      */
     public void register(Player player) {
         ClientConnection clientConnection = OpenAudioMc.getInstance().getNetworkingService().register(player);
-        spigotConnectionMap.put(player.getUniqueId(), new SpigotConnection(player, clientConnection));
+        SpigotConnection spigotConnection = new SpigotConnection(player, clientConnection);
+        spigotConnectionMap.put(player.getUniqueId(), spigotConnection);
+        movementTracker.track(player, spigotConnection);
     }
 
     /**
@@ -67,11 +77,9 @@ public class PlayerModule {
      * @param player the player to unregister
      */
     public void remove(Player player) {
-        if (spigotConnectionMap.containsKey(player.getUniqueId())) {
-            SpigotConnection spigotConnection = spigotConnectionMap.get(player.getUniqueId());
-            spigotConnection.onDestroy();
-            spigotConnectionMap.remove(player.getUniqueId());
-        }
+        movementTracker.untrack(player.getUniqueId());
+        SpigotConnection removed = spigotConnectionMap.remove(player.getUniqueId());
+        if (removed != null && removed.getRegionHandler() != null) removed.getRegionHandler().leaveAll();
 
         OpenAudioMc.getInstance().getNetworkingService().remove(player.getUniqueId());
     }
@@ -0,0 +1,25 @@
+package com.craftmend.openaudiomc.spigot.modules.players.enums;
+
+/**
+ * How much a player moved since the last sample, ordered from the smallest to the biggest change.
+ * A bigger change always implies all smaller ones (a player who changed block also moved within a block)
+ */
+public enum MovementGranularity {
+
+    ROTATION,       // only the yaw or pitch changed
+    SUB_BLOCK,      // moved, but is still in the same block
+    BLOCK,          // moved into another block
+    AUDIO_CHUNK,    // moved into another predictive audio chunk
+    WORLD;          // changed worlds, or got forced to fully update
+
+    public boolean includes(MovementGranularity other) {
+        return this.ordinal() >= other.ordinal();
+    }
+
+    public static MovementGranularity max(MovementGranularity a, MovementGranularity b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.ordinal() >= b.ordinal() ? a : b;
+    }
+
+}
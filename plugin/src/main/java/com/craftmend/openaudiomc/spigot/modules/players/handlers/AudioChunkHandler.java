@@ -2,8 +2,10 @@ package com.craftmend.openaudiomc.spigot.modules.players.handlers;
 
 import com.craftmend.openaudiomc.api.interfaces.AudioApi;
 import com.craftmend.openaudiomc.generic.networking.packets.client.media.PacketClientPreFetch;
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
 import com.craftmend.openaudiomc.spigot.modules.players.interfaces.ITickableHandler;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import java.util.Collection;
@@ -26,16 +28,22 @@ public class AudioChunkHandler implements ITickableHandler {
         this.currentAudioChunkId = "";
     }
 
+    @Override
+    public MovementGranularity getGranularity() {
+        return MovementGranularity.AUDIO_CHUNK;
+    }
+
     @Override
     public void tick() {
-        String newChunkId = audioApi.getWorldApi().getChunkId(player.getLocation());
+        Location location = spigotConnection.getLocation();
+        String newChunkId = audioApi.getWorldApi().getChunkId(location);
 
         if (!newChunkId.equals(currentAudioChunkId)) {
             currentAudioChunkId = newChunkId;
 
             if (hasPrefetchedContent) spigotConnection.getClientConnection().sendPacket(new PacketClientPreFetch(true));
 
-            Collection<String> media = audioApi.getWorldApi().getPredictedSources(player.getLocation());
+            Collection<String> media = audioApi.getWorldApi().getPredictedSources(location);
             hasPrefetchedContent = !media.isEmpty();
 
             for (String s : media) {
@@ -1,76 +1,156 @@
 package com.craftmend.openaudiomc.spigot.modules.players.handlers;
 
 import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.media.objects.Media;
+import com.craftmend.openaudiomc.generic.media.objects.MediaUpdate;
+import com.craftmend.openaudiomc.generic.networking.packets.client.media.PacketClientUpdateMedia;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.players.interfaces.ITickableHandler;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+import com.craftmend.openaudiomc.spigot.modules.regions.RegionModule;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.AudioRegionIndex;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.RegionPresenceIndex;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.RegionShape;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.IRegion;
 import com.craftmend.openaudiomc.generic.networking.packets.client.media.PacketClientDestroyMedia;
+import com.craftmend.openaudiomc.generic.utils.ActiveSet;
 import lombok.AllArgsConstructor;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @AllArgsConstructor
 public class RegionHandler implements ITickableHandler {
 
     private Player player;
     private SpigotConnection spigotConnection;
+    // ids of all audio regions the player is in, mirrored in the region presence index
+    private final Set<String> presentIn = new HashSet<>();
+
+    // volume changes smaller than this (in percent) aren't worth a packet
+    private static final int VOLUME_STEP = 5;
+    private static final int VOLUME_FADE = 250;
+    private final int falloff = StorageKey.SETTINGS_REGION_FALLOFF.getInt();
+    // the last volume that got sent to the client for each playing region media
+    private final Map<String, Integer> sentVolumes = new HashMap<>();
 
     /**
      * update regions based on the players location
      */
     @Override
-    public void tick() {
+    public synchronized void tick() {
         if (OpenAudioMcSpigot.getInstance().getRegionModule() != null) {
             //regions are enabled
+            Location location = spigotConnection.getLocation();
             List<IRegion> detectedRegions = OpenAudioMcSpigot.getInstance().getRegionModule()
-                    .getRegionAdapter().getAudioRegions(player.getLocation());
+                    .getRegionAdapter().getAudioRegions(location);
 
-            List<IRegion> enteredRegions = new ArrayList<>(detectedRegions);
-            enteredRegions.removeIf(t -> containsRegion(spigotConnection.getRegions(), t));
+            // regions are keyed by their source, so moving between regions that play the same thing doesn't restart it
+            ActiveSet<String, IRegion> activeRegions = spigotConnection.getRegions();
+            activeRegions.begin();
+            for (IRegion region : detectedRegions) {
+                activeRegions.offer(region);
+            }
+            activeRegions.end();
 
-            List<IRegion> leftRegions = new ArrayList<>(spigotConnection.getRegions());
-            leftRegions.removeIf(t -> containsRegion(detectedRegions, t));
+            updatePresence(detectedRegions);
 
-            List<IRegion> takeOverMedia = new ArrayList<>();
-            enteredRegions.forEach(entered -> {
-                if (!isPlayingRegion(entered)) {
-                    spigotConnection.getClientConnection().sendMedia(entered.getMedia());
-                } else {
-                    takeOverMedia.add(entered);
+            for (IRegion entered : activeRegions.getEntered()) {
+                Media media = entered.getMedia();
+                if (falloff > 0) {
+                    // start at the faded volume right away, instead of fading down from full volume
+                    int volume = falloffVolume(entered, location);
+                    sentVolumes.put(media.getMediaId(), volume);
+                    if (volume != quantize(entered.getVolume())) media = media.withVolume(volume);
                 }
-            });
+                spigotConnection.getClientConnection().sendMedia(media);
+            }
 
-            leftRegions.forEach(exited -> {
-                if (!containsRegion(takeOverMedia, exited)) {
-                    OpenAudioMc.getInstance().getNetworkingService().send(spigotConnection.getClientConnection(), new PacketClientDestroyMedia(exited.getMedia().getMediaId(), exited.getProperties().getFadeTimeMs()));
-                }
-            });
+            for (IRegion exited : activeRegions.getLeft()) {
+                sentVolumes.remove(exited.getMedia().getMediaId());
+                OpenAudioMc.getInstance().getNetworkingService().send(spigotConnection.getClientConnection(), new PacketClientDestroyMedia(exited.getMedia().getMediaId(), exited.getProperties().getFadeTimeMs()));
+            }
+
+            if (falloff > 0) updateFalloff(activeRegions, location);
+        }
+    }
 
-            spigotConnection.setCurrentRegions(detectedRegions);
+    /**
+     * Fade region audio based on how far the player is from the edge of the region.
+     * Volumes are quantized and only sent when they changed, so walking around doesn't flood the client with updates
+     */
+    private void updateFalloff(ActiveSet<String, IRegion> activeRegions, Location location) {
+        for (IRegion region : activeRegions.values()) {
+            int volume = falloffVolume(region, location);
+            String mediaId = region.getMedia().getMediaId();
+            Integer previous = sentVolumes.put(mediaId, volume);
+
+            // media that just started already plays at this volume
+            if (previous != null && previous == volume) continue;
+            if (previous == null && volume == quantize(region.getVolume())) continue;
+
+            OpenAudioMc.getInstance().getNetworkingService().send(
+                    spigotConnection.getClientConnection(),
+                    new PacketClientUpdateMedia(new MediaUpdate(100 - volume, 100, VOLUME_FADE, mediaId))
+            );
         }
     }
 
+    private int falloffVolume(IRegion region, Location location) {
+        AudioRegionIndex index = OpenAudioMcSpigot.getInstance().getRegionModule().getAudioRegionIndex();
+        RegionShape shape = index.getShape(location.getWorld().getName(), region.getId());
+        // regions that aren't in the index (like the global region) don't have an edge
+        double edgeDistance = shape == null ? falloff : shape.distanceToEdge(location.getBlockX() + 0.5, location.getBlockZ() + 0.5);
+        double factor = Math.max(0, Math.min(1, edgeDistance / falloff));
+        return quantize(region.getVolume() * factor);
+    }
+
+    private static int quantize(double volume) {
+        int stepped = (int) Math.round(volume / VOLUME_STEP) * VOLUME_STEP;
+        return Math.max(0, Math.min(100, stepped));
+    }
+
     @Override
-    public void reset() {
-        for (IRegion currentRegions : spigotConnection.getCurrentRegions()) {
+    public synchronized void reset() {
+        for (IRegion currentRegions : spigotConnection.getRegions().values()) {
             OpenAudioMc.getInstance().getNetworkingService().send(spigotConnection.getClientConnection(), new PacketClientDestroyMedia(currentRegions.getMedia().getMediaId()));
         }
 
         spigotConnection.getRegions().clear();
+        sentVolumes.clear();
+        leaveAll();
     }
 
-    private boolean containsRegion(List<IRegion> list, IRegion query) {
-        for (IRegion r : list) if (query.getMedia().getSource().equals(r.getMedia().getSource())) return true;
-        return false;
+    /**
+     * Remove the player from the presence index of all regions, should be called when they go away
+     */
+    public synchronized void leaveAll() {
+        RegionModule regionModule = OpenAudioMcSpigot.getInstance().getRegionModule();
+        if (regionModule != null) {
+            for (String id : presentIn) regionModule.getRegionPresence().leave(id, spigotConnection);
+        }
+        presentIn.clear();
     }
 
-    private boolean isPlayingRegion(IRegion region) {
-        for (IRegion r : spigotConnection.getRegions())
-            if (region.getMedia().getSource().equals(r.getMedia().getSource())) return true;
-        return false;
+    private void updatePresence(List<IRegion> detectedRegions) {
+        RegionPresenceIndex presence = OpenAudioMcSpigot.getInstance().getRegionModule().getRegionPresence();
+
+        Set<String> detectedIds = new HashSet<>();
+        for (IRegion region : detectedRegions) {
+            detectedIds.add(region.getId());
+            if (presentIn.add(region.getId())) presence.enter(region.getId(), spigotConnection);
+        }
+
+        Iterator<String> iterator = presentIn.iterator();
+        while (iterator.hasNext()) {
+            String id = iterator.next();
+            if (!detectedIds.contains(id)) {
+                iterator.remove();
+                presence.leave(id, spigotConnection);
+            }
+        }
     }
 
 }
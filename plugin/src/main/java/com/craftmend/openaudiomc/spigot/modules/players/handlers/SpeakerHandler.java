@@ -4,12 +4,14 @@ import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.networking.abstracts.AbstractPacket;
 import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientCreateSpeaker;
 import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientRemoveSpeaker;
-import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientUpdateLocation;
-import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientPlayerLocationPayload;
+import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientUpdateSpeakerObstructions;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerCreatePayload;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerDestroyPayload;
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientSpeakerObstructionPayload;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.ClientSpeaker;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.Vector3;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
+import com.craftmend.openaudiomc.generic.utils.ActiveSet;
 import com.craftmend.openaudiomc.spigot.modules.players.enums.PlayerLocationFollower;
 import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
@@ -17,15 +19,12 @@ import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.players.interfaces.ITickableHandler;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
-import com.craftmend.openaudiomc.spigot.modules.speakers.objects.ApplicableSpeaker;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 import lombok.AllArgsConstructor;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @AllArgsConstructor
 public class SpeakerHandler implements ITickableHandler {
@@ -33,51 +32,89 @@ public class SpeakerHandler implements ITickableHandler {
     private final Player player;
     private final SpigotConnection spigotConnection;
     private final List<AbstractPacket> packetQue = new ArrayList<>();
+    private final List<Speaker> speakersInRange = new ArrayList<>();
     private final SpeakerModule speakerModule = OpenAudioMcSpigot.getInstance().getSpeakerModule();
 
+    // minimum time in ms between two obstruction passes
+    private static final long OBSTRUCTION_INTERVAL = 500;
+    private final int obstructionDistance = StorageKey.SETTINGS_SPEAKER_OBSTRUCTION_DISTANCE.getInt();
+    // obstruction counts the client knows about, only for speakers that process obstructions
+    private final Map<UUID, Integer> knownObstructions = new HashMap<>();
+    // last obstruction counts of speakers that aren't active anymore, so culled speakers keep their rank
+    private static final int MAX_REMEMBERED_OBSTRUCTIONS = 256;
+    private static final long REMEMBERED_OBSTRUCTION_TTL = 10000;
+    private final Map<UUID, RememberedObstructions> rememberedObstructions = new LinkedHashMap<UUID, RememberedObstructions>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, RememberedObstructions> eldest) {
+            return size() > MAX_REMEMBERED_OBSTRUCTIONS;
+        }
+    };
+    private final Deque<Speaker> obstructionBacklog = new ArrayDeque<>();
+    private Location obstructionOrigin = null;
+    private long lastObstructionPass = 0;
+    private boolean obstructionsQueued = false;
+
+    // the maximum amount of active speakers, the loudest ones win
+    private final int speakerBudget = StorageKey.SETTINGS_SPEAKER_BUDGET.getInt();
+    // how much louder a speaker has to be to take the place of an active one, so they don't flap at the edge
+    private static final double BUDGET_HYSTERESIS = 1.25;
+    // volume that's left after passing through a single obstruction
+    private static final double OBSTRUCTION_ATTENUATION = 0.5;
+    private final Comparator<Speaker> byLoudness = Comparator.comparingDouble(this::rankingLoudness).reversed();
+    private Location rankingOrigin = null;
+
     /**
      * update speakers based on the players location
      */
     @Override
-    public void tick() {
-        List<ApplicableSpeaker> applicableSpeakers = new ArrayList<>(speakerModule.getCollector().getApplicableSpeakers(player.getLocation()));
-        List<ApplicableSpeaker> enteredSpeakers = new ArrayList<>(applicableSpeakers);
-        enteredSpeakers.removeIf(speaker -> containsSpeaker(spigotConnection.getSpeakers(), speaker));
-        List<ApplicableSpeaker> leftSpeakers = new ArrayList<>(spigotConnection.getSpeakers());
-        leftSpeakers.removeIf(speaker -> containsSpeaker(applicableSpeakers, speaker));
-
-        enteredSpeakers.forEach(entered -> {
-            if (!isPlayingSpeaker(entered)) {
-
-                int obstructions = 0;
-
-                // calculate obstructions?
-                // yea, but only if enabled for this speaker
-                if (ExtraSpeakerOptions.PROCESS_OBSTRUCTIONS.isEnabledFor(entered.getSpeaker())) {
-                    obstructions = speakerModule.getRayTracer().obstructionsBetweenLocations(player.getLocation(), entered.getLocation());
-                }
-
-                // overwrite sync flag
-                if (ExtraSpeakerOptions.IGNORE_SYNCHRONIZATION.isEnabledFor(entered.getSpeaker())) {
-                    entered.getSpeaker().getMedia().setDoPickup(false);
-                }
-
-                packetQue.add(new PacketClientCreateSpeaker(
-                        new ClientSpeakerCreatePayload(toClientSpeaker(entered, obstructions)))
-                );
-            }
-        });
+    public synchronized void tick() {
+        Location location = spigotConnection.getLocation();
+
+        speakersInRange.clear();
+        speakerModule.getCollector().collectSpeakers(location, speakersInRange);
+        if (speakerBudget > 0 && speakersInRange.size() > speakerBudget) cullToBudget(location);
+
+        ActiveSet<UUID, Speaker> activeSpeakers = spigotConnection.getSpeakers();
+        activeSpeakers.begin();
+        for (Speaker speaker : speakersInRange) {
+            activeSpeakers.offer(speaker);
+        }
+        activeSpeakers.end();
 
-        // send deletion packets
-        leftSpeakers.forEach(left -> {
+        // send deletion packets first, a speaker that changed type is in both lists and gets created again below
+        for (Speaker left : activeSpeakers.getLeft()) {
+            Integer obstructions = knownObstructions.remove(left.getId());
+            if (obstructions != null) {
+                rememberedObstructions.put(left.getId(), new RememberedObstructions(obstructions, System.currentTimeMillis()));
+            }
             ClientSpeaker clientSpeaker = toClientSpeaker(left, -1);
             OpenAudioMc.getInstance().getNetworkingService().send(spigotConnection.getClientConnection(), new PacketClientRemoveSpeaker(new ClientSpeakerDestroyPayload(clientSpeaker)));
-        });
+        }
 
-        spigotConnection.setCurrentSpeakers(applicableSpeakers);
+        for (Speaker entered : activeSpeakers.getEntered()) {
+            int obstructions = 0;
+
+            // calculate obstructions?
+            // yea, but only if enabled for this speaker
+            if (ExtraSpeakerOptions.PROCESS_OBSTRUCTIONS.isEnabledFor(entered)) {
+                obstructions = speakerModule.getRayTracer().obstructionsToSpeaker(location, entered);
+                knownObstructions.put(entered.getId(), obstructions);
+                rememberedObstructions.remove(entered.getId());
+                if (obstructionOrigin == null) obstructionOrigin = location;
+            }
+
+            // overwrite sync flag
+            if (ExtraSpeakerOptions.IGNORE_SYNCHRONIZATION.isEnabledFor(entered)) {
+                entered.getMedia().setDoPickup(false);
+            }
+
+            packetQue.add(new PacketClientCreateSpeaker(
+                    new ClientSpeakerCreatePayload(toClientSpeaker(entered, obstructions)))
+            );
+        }
 
         // update location if the client is listening to something
-        if (!applicableSpeakers.isEmpty() || spigotConnection.getClientConnection().getApiSpeakers() > 0) {
+        if (!activeSpeakers.isEmpty() || spigotConnection.getClientConnection().getApiSpeakers() > 0) {
 
             spigotConnection.getLocationFollowers().add(PlayerLocationFollower.SPEAKERS);
 
@@ -87,6 +124,109 @@ public class SpeakerHandler implements ITickableHandler {
 
             packetQue.clear();
         }
+
+        scheduleObstructionPass(location);
+    }
+
+    /**
+     * Re-trace the obstructions of a part of the backlog, called by the ObstructionUpdateTask
+     *
+     * @param limit the maximum amount of traces
+     * @return the amount of speakers that got handled
+     */
+    public synchronized int updateObstructions(int limit) {
+        // don't bother if they left in the meantime
+        if (!spigotConnection.getClientConnection().isConnected()) obstructionBacklog.clear();
+
+        int handled = 0;
+        while (handled < limit && !obstructionBacklog.isEmpty()) {
+            Speaker speaker = obstructionBacklog.poll();
+            handled++;
+
+            // it might have left since the pass got scheduled
+            Integer known = knownObstructions.get(speaker.getId());
+            if (known == null) continue;
+
+            int updated = speakerModule.getRayTracer().obstructionsToSpeaker(obstructionOrigin, speaker);
+            if (updated == known) continue;
+
+            knownObstructions.put(speaker.getId(), updated);
+            OpenAudioMc.getInstance().getNetworkingService().send(spigotConnection.getClientConnection(), new PacketClientUpdateSpeakerObstructions(
+                    new ClientSpeakerObstructionPayload(speaker.getId().toString(), updated)
+            ));
+        }
+
+        if (obstructionBacklog.isEmpty()) {
+            obstructionsQueued = false;
+        } else {
+            speakerModule.getObstructionUpdateTask().queue(this);
+        }
+        return handled;
+    }
+
+    /**
+     * Only keep the loudest speakers in range, speakers that are already active get a head start
+     */
+    private void cullToBudget(Location location) {
+        rankingOrigin = location;
+        speakersInRange.sort(byLoudness);
+        speakersInRange.subList(speakerBudget, speakersInRange.size()).clear();
+    }
+
+    private double rankingLoudness(Speaker speaker) {
+        double dx = speaker.getLocation().getX() + 0.5 - rankingOrigin.getX();
+        double dy = speaker.getLocation().getY() + 0.5 - rankingOrigin.getY();
+        double dz = speaker.getLocation().getZ() + 0.5 - rankingOrigin.getZ();
+        double distance = Math.sqrt((dx * dx) + (dy * dy) + (dz * dz));
+
+        // linear falloff over the radius, and halved for every known wall in between
+        double loudness = Math.max(0, 1 - (distance / Math.max(1, speaker.getRadius())));
+        Integer obstructions = knownObstructions.get(speaker.getId());
+        if (obstructions == null) obstructions = rememberedObstructions(speaker);
+        if (obstructions != null) loudness *= Math.pow(OBSTRUCTION_ATTENUATION, obstructions);
+
+        if (spigotConnection.getSpeakers().contains(speaker.getId())) loudness *= BUDGET_HYSTERESIS;
+        return loudness;
+    }
+
+    // what a speaker was traced at while it was active, as long as that isn't too long ago
+    private Integer rememberedObstructions(Speaker speaker) {
+        RememberedObstructions remembered = rememberedObstructions.get(speaker.getId());
+        if (remembered == null) return null;
+        if (System.currentTimeMillis() - remembered.rememberedAt > REMEMBERED_OBSTRUCTION_TTL) {
+            rememberedObstructions.remove(speaker.getId());
+            return null;
+        }
+        return remembered.obstructions;
+    }
+
+    private void scheduleObstructionPass(Location location) {
+        if (knownObstructions.isEmpty()) {
+            // nothing left to trace, the next speaker that enters starts over from where the player is then
+            obstructionOrigin = null;
+            return;
+        }
+        if (obstructionOrigin == null) obstructionOrigin = location;
+
+        // after switching worlds every known trace is outdated, no matter how far the player got
+        boolean changedWorld = obstructionOrigin.getWorld() != location.getWorld();
+        if (!changedWorld && obstructionOrigin.distanceSquared(location) < obstructionDistance * obstructionDistance) return;
+
+        long now = System.currentTimeMillis();
+        if (now - lastObstructionPass < OBSTRUCTION_INTERVAL) return;
+        lastObstructionPass = now;
+        obstructionOrigin = location;
+
+        // restart with the current speakers, anything left over from the previous pass is outdated anyway
+        obstructionBacklog.clear();
+        for (Speaker speaker : spigotConnection.getSpeakers().values()) {
+            if (knownObstructions.containsKey(speaker.getId())) obstructionBacklog.add(speaker);
+        }
+
+        if (!obstructionsQueued) {
+            obstructionsQueued = true;
+            speakerModule.getObstructionUpdateTask().queue(this);
+        }
     }
 
     public void forceDeleteSpeaker(String id, SpeakerType type, String source) {
@@ -103,27 +243,24 @@ public class SpeakerHandler implements ITickableHandler {
         )));
     }
 
-    private boolean isPlayingSpeaker(ApplicableSpeaker speaker) {
-        return containsSpeaker(spigotConnection.getSpeakers(), speaker);
-    }
-
-
-    private boolean containsSpeaker(List<ApplicableSpeaker> list, ApplicableSpeaker speaker) {
-        return list.stream().anyMatch(currentSpeaker -> currentSpeaker.equals(speaker));
-    }
-
-    private ClientSpeaker toClientSpeaker(ApplicableSpeaker speaker, int obstructions) {
-        String id = speaker.getSpeaker().getId().toString();
+    private ClientSpeaker toClientSpeaker(Speaker speaker, int obstructions) {
+        String id = speaker.getId().toString();
 
         return new ClientSpeaker(
-                speaker.getLocation(),
+                Vector3.from(speaker.getLocation()),
                 speaker.getSpeakerType(),
                 id,
-                speaker.getSpeaker().getSource(),
-                speaker.getSpeaker().getRadius(),
-                speaker.getSpeaker().getMedia().getStartInstant(),
+                speaker.getSource(),
+                speaker.getRadius(),
+                speaker.getMedia().getStartInstant(),
                 obstructions
         );
     }
 
+    @AllArgsConstructor
+    private static final class RememberedObstructions {
+        private final int obstructions;
+        private final long rememberedAt;
+    }
+
 }
@@ -1,8 +1,18 @@
 package com.craftmend.openaudiomc.spigot.modules.players.interfaces;
 
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
+
 public interface ITickableHandler {
 
     void tick();
+
+    /**
+     * @return the smallest movement that should make this handler tick
+     */
+    default MovementGranularity getGranularity() {
+        return MovementGranularity.BLOCK;
+    }
+
     default void reset() {
         throw new UnsupportedOperationException("");
     }
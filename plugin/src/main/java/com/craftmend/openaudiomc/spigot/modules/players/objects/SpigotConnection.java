@@ -6,8 +6,12 @@ import com.craftmend.openaudiomc.generic.networking.client.objects.player.Client
 import com.craftmend.openaudiomc.generic.networking.packets.client.speakers.PacketClientUpdateLocation;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.ClientPlayerLocationPayload;
 import com.craftmend.openaudiomc.generic.platform.Platform;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
+import com.craftmend.openaudiomc.generic.utils.ActiveSet;
+import com.craftmend.openaudiomc.generic.utils.FixedPoint;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.generic.media.objects.Media;
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
 import com.craftmend.openaudiomc.spigot.modules.players.enums.PlayerLocationFollower;
 import com.craftmend.openaudiomc.spigot.modules.players.events.ClientDisconnectEvent;
 import com.craftmend.openaudiomc.spigot.modules.players.handlers.AudioChunkHandler;
@@ -15,47 +19,44 @@ import com.craftmend.openaudiomc.spigot.modules.players.handlers.InitializeTrain
 import com.craftmend.openaudiomc.spigot.modules.players.handlers.RegionHandler;
 import com.craftmend.openaudiomc.spigot.modules.players.handlers.SpeakerHandler;
 import com.craftmend.openaudiomc.spigot.modules.players.events.ClientConnectEvent;
+import com.craftmend.openaudiomc.spigot.modules.players.interfaces.ITickableHandler;
+import com.craftmend.openaudiomc.spigot.modules.players.tracking.LocationPredictor;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.IRegion;
-import com.craftmend.openaudiomc.spigot.modules.speakers.objects.ApplicableSpeaker;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.SpeakerSettings;
-import com.craftmend.openaudiomc.spigot.services.utils.DataWatcher;
 import lombok.Getter;
 import lombok.Setter;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SpigotConnection {
 
     @Getter
     private ClientConnection clientConnection;
 
-    // optional regions and speakers
+    // optional regions and speakers, regions are keyed by source and speakers by their id (re-created when their type changes)
     @Getter
-    @Setter
-    private List<IRegion> currentRegions = new ArrayList<>();
-    @Setter
-    private List<ApplicableSpeaker> currentSpeakers = new ArrayList<>();
-
-    // data watcher that watches for changes in the location, every 2 ticks.
+    private final ActiveSet<String, IRegion> regions = new ActiveSet<>(region -> region.getMedia().getSource());
     @Getter
-    private DataWatcher<Location> locationDataWatcher = new DataWatcher<>(
-            OpenAudioMcSpigot.getInstance(),
-            false,
-            2
-    );
+    private final ActiveSet<UUID, Speaker> speakers = new ActiveSet<>(Speaker::getId, Speaker::getSpeakerType);
 
     // Speaker and region handles. Region handler can be null if the feature is disabled
     @Getter private SpeakerHandler speakerHandler;
     @Getter private RegionHandler regionHandler;
     @Getter private AudioChunkHandler audioChunkHandler;
-    @Getter private Set<PlayerLocationFollower> locationFollowers = new HashSet<>();
+    @Getter private Set<PlayerLocationFollower> locationFollowers = ConcurrentHashMap.newKeySet();
+    private final List<ITickableHandler> movementHandlers = new ArrayList<>();
     private Player player;
+    // location of the player at the last tick snapshot, used when working off the main thread
+    private volatile Location snapshotLocation = null;
+    // only sends the location when the client can't predict it anymore, if the client supports that
+    private final boolean deadReckoning;
+    @Getter private final LocationPredictor locationPredictor;
 
     //plugin data
     @Setter
@@ -68,6 +69,8 @@ public class SpigotConnection {
     public SpigotConnection(Player player, ClientConnection clientConnection) {
         this.clientConnection = clientConnection;
         this.player = player;
+        // registered on the main thread, so there's a location before the movement tracker took its first sample
+        this.snapshotLocation = player.getLocation();
         // if the region system is enabled, then load the handler
         if (OpenAudioMcSpigot.getInstance().getRegionModule() != null)
             this.regionHandler = new RegionHandler(player, this);
@@ -75,83 +78,115 @@ public class SpigotConnection {
         this.speakerHandler = new SpeakerHandler(player, this);
         this.audioChunkHandler = new AudioChunkHandler(player, this);
 
-        // code that fires when the location has been changed
-        locationDataWatcher.setTask(updatedLocation -> {
-            // if the client is not connected, then dont do shit, they wont hear it anyway
-            if (!this.clientConnection.getIsConnected()) return;
-
-            this.audioChunkHandler.tick();
-
-            // tick the regions, if the regions are enabled
-            if (this.regionHandler != null) this.regionHandler.tick();
-
-            // tick the speakers to force them to update
-            this.speakerHandler.tick();
-
-            // update location if wanted
-            tickLocationFollowers();
-        });
+        int errorThreshold = StorageKey.SETTINGS_LOCATION_ERROR_THRESHOLD.getInt();
+        this.deadReckoning = errorThreshold > 0;
+        this.locationPredictor = new LocationPredictor(errorThreshold / 10d);
 
-        // the feeder, how the data watcher gets its new fed data
-        locationDataWatcher.setFeeder(player::getLocation);
+        // handlers that get ticked by the movement tracker, in this order
+        movementHandlers.add(audioChunkHandler);
+        if (regionHandler != null) movementHandlers.add(regionHandler);
+        movementHandlers.add(speakerHandler);
 
         // set handlers
         clientConnection.addOnConnectHandler(() -> {
             audioChunkHandler.reset();
-            currentRegions.clear();
-            currentSpeakers.clear();
-            locationDataWatcher.getCallback().accept(player.getLocation());
+            locationPredictor.reset();
+            regions.clear();
+            speakers.clear();
+            // handled by the movement tracker with a fresh sample, the connect handlers don't run on the main thread
+            forceUpdate();
             Bukkit.getScheduler().runTask(OpenAudioMcSpigot.getInstance(), () -> Bukkit.getServer().getPluginManager().callEvent(new ClientConnectEvent(player, this)));
         });
 
         clientConnection.addOnConnectHandler(new InitializeTrains(player));
 
         clientConnection.addOnDisconnectHandler(() -> {
+            // nothing to correct anymore, so the movement tracker can stop sampling them
+            locationPredictor.reset();
             OpenAudioMc.getInstance().getTaskProvider().runSync(() -> {
                 Bukkit.getServer().getPluginManager().callEvent(new ClientDisconnectEvent(player));
             });
         });
     }
 
-    private void tickLocationFollowers() {
-        if (!locationFollowers.isEmpty()) {
-            Location location = player.getLocation();
-            ClientPlayerLocationPayload locationPayload = new ClientPlayerLocationPayload(
-                    round(location.getX(), 1),
-                    round(location.getY(), 1),
-                    round(location.getZ(), 1),
-                    (int) location.getPitch(),
-                    (int) location.getYaw()
-            );
+    /**
+     * Called by the movement tracker when the player moved
+     *
+     * @param change   how much the player moved since the last call
+     * @param location where the player was when the change got sampled, or null to use their current location
+     */
+    public void onMovement(MovementGranularity change, Location location) {
+        if (location != null) this.snapshotLocation = location;
 
-            OpenAudioMc.getInstance().getNetworkingService().send(getClientConnection(), new PacketClientUpdateLocation(locationPayload));
+        // if the client is not connected, then dont do shit, they wont hear it anyway
+        if (!this.clientConnection.getIsConnected()) return;
 
-            if (locationFollowers.contains(PlayerLocationFollower.PROXIMITY_VOICE_CHAT)) {
-                clientConnection.getClientRtcManager().onLocationTick(location);
-            }
+        for (ITickableHandler handler : movementHandlers) {
+            if (change.includes(handler.getGranularity())) handler.tick();
         }
+
+        // update location if wanted, any movement (even looking around) matters here
+        tickLocationFollowers();
     }
 
     /**
-     * Called before the Client object is destroyed
+     * Make the movement tracker fully update this player during its next pass
      */
-    public void onDestroy() {
-        // shutdown the data watcher
-        this.locationDataWatcher.stop();
+    public void forceUpdate() {
+        OpenAudioMcSpigot.getInstance().getPlayerModule().getMovementTracker().forceUpdate(player.getUniqueId());
     }
 
     /**
-     * @return regions that the player is a part of
+     * @return the location of the player, taken from the last tick snapshot when called off the main thread
      */
-    public List<IRegion> getRegions() {
-        return currentRegions;
+    public Location getLocation() {
+        if (Bukkit.isPrimaryThread()) return player.getLocation();
+        // never null, it's set when the connection gets created
+        return snapshotLocation;
     }
 
-    /**
-     * @return speakers in range of the player
-     */
-    public List<ApplicableSpeaker> getSpeakers() {
-        return currentSpeakers;
+    private void tickLocationFollowers() {
+        if (!locationFollowers.isEmpty()) {
+            Location location = getLocation();
+            ClientPlayerLocationPayload locationPayload = null;
+
+            if (deadReckoning && clientConnection.getBinaryEncoder().supportsMotion()) {
+                if (locationPredictor.update(location.getX(), location.getY(), location.getZ(), location.getPitch(), location.getYaw(), System.nanoTime())) {
+                    locationPayload = new ClientPlayerLocationPayload(
+                            locationPredictor.getX(),
+                            locationPredictor.getY(),
+                            locationPredictor.getZ(),
+                            locationPredictor.getPitch(),
+                            locationPredictor.getYaw(),
+                            locationPredictor.getVelocityX(),
+                            locationPredictor.getVelocityY(),
+                            locationPredictor.getVelocityZ(),
+                            locationPredictor.getYawRate()
+                    );
+                }
+            } else {
+                // the client doesn't extrapolate (yet), so start over once it does
+                locationPredictor.reset();
+                locationPayload = new ClientPlayerLocationPayload(
+                        FixedPoint.round(location.getX(), 1),
+                        FixedPoint.round(location.getY(), 1),
+                        FixedPoint.round(location.getZ(), 1),
+                        (int) location.getPitch(),
+                        (int) location.getYaw()
+                );
+            }
+
+            if (locationPayload != null) {
+                OpenAudioMc.getInstance().getNetworkingService().send(getClientConnection(), new PacketClientUpdateLocation(locationPayload));
+            }
+
+            if (locationFollowers.contains(PlayerLocationFollower.PROXIMITY_VOICE_CHAT)) {
+                clientConnection.getClientRtcManager().onLocationTick(location);
+            }
+        } else {
+            // nobody needs the location, so there's nothing to correct either
+            locationPredictor.reset();
+        }
     }
 
     /**
@@ -160,12 +195,4 @@ public class SpigotConnection {
     public void playMedia(Media media) {
         clientConnection.sendMedia(media);
     }
-
-    private double round(double value, int places) {
-        if (places < 0) throw new IllegalArgumentException();
-
-        BigDecimal bd = BigDecimal.valueOf(value);
-        bd = bd.setScale(places, RoundingMode.HALF_UP);
-        return bd.doubleValue();
-    }
 }
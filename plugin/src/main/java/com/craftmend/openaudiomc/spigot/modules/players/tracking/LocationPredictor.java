@@ -0,0 +1,147 @@
+package com.craftmend.openaudiomc.spigot.modules.players.tracking;
+
+import com.craftmend.openaudiomc.generic.utils.FixedPoint;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dead reckoning for the location stream of a single player. The client gets a location together with a velocity and
+ * yaw rate, and keeps moving the listener along those by itself (see Player.js). This mirrors that prediction, and only
+ * asks for a new update once the location the client thinks the player is at drifted further than the error threshold,
+ * or when the player turned or looked up/down too much.
+ *
+ * Everything that gets sent is rounded the same way the client receives it, so both sides predict the exact same
+ * location. Samples come in from the tick threads and resets from the connection handlers, so both lock the predictor.
+ * No objects get created per sample.
+ */
+public class LocationPredictor {
+
+    // the client stops extrapolating after this, so a missed stop can't send someone walking off forever
+    public static final double MAX_EXTRAPOLATION_SECONDS = 1;
+    public static final double YAW_THRESHOLD = 5;
+    public static final double PITCH_THRESHOLD = 5;
+    // anything faster than this is a teleport, not movement
+    private static final double MAX_SPEED = 100;
+    // samples further apart than this are a player that started moving again, not a velocity
+    private static final double MAX_SAMPLE_GAP_SECONDS = 0.5;
+
+    private final double errorThresholdSquared;
+
+    // the previous sample, to estimate the velocity from
+    private boolean hasSample = false;
+    private double sampleX, sampleY, sampleZ, sampleYaw;
+    private long sampleTime;
+
+    // what the client got last, and when
+    private boolean hasSent = false;
+    private long sentTime;
+    @Getter private double x, y, z;
+    @Getter private int pitch, yaw;
+    @Getter private double velocityX, velocityY, velocityZ;
+    @Getter private int yawRate;
+
+    // read by the movement tracker on the main thread
+    private volatile boolean extrapolating = false;
+
+    /**
+     * @param errorThreshold how far (in blocks) the prediction may be off before a correction gets sent
+     */
+    public LocationPredictor(double errorThreshold) {
+        this.errorThresholdSquared = errorThreshold * errorThreshold;
+    }
+
+    /**
+     * Forget everything, the next sample always gets sent
+     */
+    public synchronized void reset() {
+        hasSample = false;
+        hasSent = false;
+        extrapolating = false;
+    }
+
+    /**
+     * @return true if the client is (probably) still moving the player by itself, so it needs samples
+     * to get corrected even when the player stands still
+     */
+    public boolean isExtrapolating() {
+        return extrapolating;
+    }
+
+    /**
+     * Feed a new sample. If it returns true, the getters hold the state that should be sent to the client
+     *
+     * @return true if the client needs an update
+     */
+    public synchronized boolean update(double newX, double newY, double newZ, float newPitch, float newYaw, long now) {
+        double newVelocityX = 0, newVelocityY = 0, newVelocityZ = 0, newYawRate = 0;
+        if (hasSample) {
+            double seconds = seconds(now - sampleTime);
+            if (seconds > 0 && seconds <= MAX_SAMPLE_GAP_SECONDS) {
+                newVelocityX = (newX - sampleX) / seconds;
+                newVelocityY = (newY - sampleY) / seconds;
+                newVelocityZ = (newZ - sampleZ) / seconds;
+                newYawRate = angleBetween(sampleYaw, newYaw) / seconds;
+
+                double speedSquared = (newVelocityX * newVelocityX) + (newVelocityY * newVelocityY) + (newVelocityZ * newVelocityZ);
+                if (speedSquared > MAX_SPEED * MAX_SPEED) {
+                    newVelocityX = 0;
+                    newVelocityY = 0;
+                    newVelocityZ = 0;
+                }
+            }
+        }
+
+        hasSample = true;
+        sampleX = newX;
+        sampleY = newY;
+        sampleZ = newZ;
+        sampleYaw = newYaw;
+        sampleTime = now;
+
+        if (hasSent && !needsCorrection(newX, newY, newZ, newPitch, newYaw, now)) {
+            // the client stopped extrapolating by itself, so a small leftover velocity doesn't need samples anymore
+            if (seconds(now - sentTime) >= MAX_EXTRAPOLATION_SECONDS) extrapolating = false;
+            return false;
+        }
+
+        hasSent = true;
+        sentTime = now;
+        x = FixedPoint.round(newX, 1);
+        y = FixedPoint.round(newY, 1);
+        z = FixedPoint.round(newZ, 1);
+        pitch = (int) newPitch;
+        yaw = (int) newYaw;
+        velocityX = FixedPoint.round(newVelocityX, 1);
+        velocityY = FixedPoint.round(newVelocityY, 1);
+        velocityZ = FixedPoint.round(newVelocityZ, 1);
+        yawRate = (int) newYawRate;
+        extrapolating = velocityX != 0 || velocityY != 0 || velocityZ != 0 || yawRate != 0;
+        return true;
+    }
+
+    private boolean needsCorrection(double newX, double newY, double newZ, float newPitch, float newYaw, long now) {
+        double age = Math.min(seconds(now - sentTime), MAX_EXTRAPOLATION_SECONDS);
+
+        double dx = (x + velocityX * age) - newX;
+        double dy = (y + velocityY * age) - newY;
+        double dz = (z + velocityZ * age) - newZ;
+        if ((dx * dx) + (dy * dy) + (dz * dz) > errorThresholdSquared) return true;
+
+        if (Math.abs(angleBetween(yaw + yawRate * age, newYaw)) > YAW_THRESHOLD) return true;
+        return Math.abs(newPitch - pitch) > PITCH_THRESHOLD;
+    }
+
+    // shortest signed turn from one yaw to the other, in degrees
+    private static double angleBetween(double from, double to) {
+        double difference = (to - from) % 360;
+        if (difference > 180) difference -= 360;
+        if (difference < -180) difference += 360;
+        return difference;
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.craftmend.openaudiomc.spigot.modules.players.tracking;
+
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
+import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+import com.craftmend.openaudiomc.spigot.services.server.WorldIdRegistry;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Samples the location of all tracked players in a single sync task, instead of every player having
+ * their own watcher task. Positions get copied into a primitive snapshot on the main thread and changes are classified
+ * (see MovementGranularity). Moved players are then sharded by world and region, and handed to the tick engine.
+ */
+public class MovementTracker {
+
+    // sample every other tick, the same rate the old per-player watchers had
+    private static final int SAMPLE_INTERVAL = 2;
+    // shard size in blocks, the size of a minecraft region file (32x32 chunks)
+    private static final int SHARD_SHIFT = 9;
+
+    private final Map<UUID, TrackedPlayer> trackedPlayers = new ConcurrentHashMap<>();
+    private final PositionSnapshot snapshot = new PositionSnapshot();
+    private final PlayerTickEngine tickEngine = new PlayerTickEngine();
+    private final WorldIdRegistry worldIds;
+    private final Map<Long, List<TrackedPlayer>> shards = new HashMap<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
+
+    public MovementTracker(OpenAudioMcSpigot openAudioMcSpigot) {
+        this.worldIds = openAudioMcSpigot.getServerService().getWorldIds();
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(openAudioMcSpigot, this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL);
+    }
+
+    public void track(Player player, SpigotConnection connection) {
+        TrackedPlayer old = trackedPlayers.put(player.getUniqueId(), new TrackedPlayer(player, connection, snapshot.allocate()));
+        if (old != null) snapshot.release(old.getSlot());
+    }
+
+    public void untrack(UUID uuid) {
+        TrackedPlayer trackedPlayer = trackedPlayers.remove(uuid);
+        if (trackedPlayer != null) snapshot.release(trackedPlayer.getSlot());
+    }
+
+    /**
+     * Make the next sample of a player count as a full update, even if they didn't move
+     *
+     * @param uuid player uuid
+     */
+    public void forceUpdate(UUID uuid) {
+        TrackedPlayer trackedPlayer = trackedPlayers.get(uuid);
+        if (trackedPlayer != null) trackedPlayer.force();
+    }
+
+    public void shutdown() {
+        tickEngine.shutdown();
+    }
+
+    private void sample() {
+        // changes keep accumulating in the players while the previous batch is still being handled
+        boolean canDispatch = !dispatching.get();
+
+        for (TrackedPlayer trackedPlayer : trackedPlayers.values()) {
+            Location sample = trackedPlayer.getSample();
+            trackedPlayer.getPlayer().getLocation(sample);
+
+            String worldName = sample.getWorld().getName();
+            int world = worldIds.getId(worldName);
+            if (world == WorldIdRegistry.UNKNOWN) world = worldIds.register(worldName);
+
+            MovementGranularity change = snapshot.update(
+                    trackedPlayer.getSlot(),
+                    world,
+                    sample.getX(), sample.getY(), sample.getZ(),
+                    sample.getYaw(), sample.getPitch()
+            );
+
+            // the client is still moving this player along their last velocity, so it needs a sample to get
+            // corrected once they stop, even if nothing changed
+            if (change == null && trackedPlayer.getConnection().getLocationPredictor().isExtrapolating()) {
+                change = MovementGranularity.ROTATION;
+            }
+
+            if (trackedPlayer.mark(change) && canDispatch) {
+                trackedPlayer.capture();
+                shards.computeIfAbsent(shardKey(trackedPlayer.getSlot()), key -> new ArrayList<>()).add(trackedPlayer);
+            }
+        }
+
+        if (shards.isEmpty()) return;
+
+        List<List<TrackedPlayer>> batch = new ArrayList<>(shards.values());
+        shards.clear();
+        dispatching.set(true);
+        tickEngine.dispatch(batch, () -> dispatching.set(false));
+    }
+
+    private long shardKey(int slot) {
+        long world = snapshot.getWorld(slot);
+        long regionX = snapshot.getBlockX(slot) >> SHARD_SHIFT;
+        long regionZ = snapshot.getBlockZ(slot) >> SHARD_SHIFT;
+        return (world << 48) | ((regionX & 0xFFFFFF) << 24) | (regionZ & 0xFFFFFF);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.craftmend.openaudiomc.spigot.modules.players.tracking;
+
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the per-player work (speakers, regions, prefetching and voice) for a batch of moved players on a bounded
+ * fork join pool. Players are handed over in shards (grouped by world and region), shards run in parallel
+ * while the players within a shard are handled one after the other on the same thread.
+ */
+public class PlayerTickEngine {
+
+    private static final int MAX_THREADS = 4;
+
+    private final ForkJoinPool pool;
+
+    public PlayerTickEngine() {
+        int parallelism = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("OpenAudioMc-PlayerTick-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        OpenAudioLogger.toConsole("Handling player movement on " + parallelism + " thread(s)");
+    }
+
+    /**
+     * Handle a batch of shards
+     *
+     * @param shards     groups of players that moved
+     * @param onComplete ran once every shard has been handled, even if some of them failed
+     */
+    public void dispatch(Collection<List<TrackedPlayer>> shards, Runnable onComplete) {
+        List<ShardTask> tasks = new ArrayList<>(shards.size());
+        for (List<TrackedPlayer> shard : shards) tasks.add(new ShardTask(shard));
+
+        pool.execute(() -> {
+            try {
+                ForkJoinTask.invokeAll(tasks);
+            } finally {
+                onComplete.run();
+            }
+        });
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static class ShardTask extends RecursiveAction {
+
+        private final List<TrackedPlayer> players;
+
+        private ShardTask(List<TrackedPlayer> players) {
+            this.players = players;
+        }
+
+        @Override
+        protected void compute() {
+            for (TrackedPlayer trackedPlayer : players) {
+                TrackedPlayer.Move move = trackedPlayer.drain();
+                if (move == null) continue;
+                try {
+                    trackedPlayer.getConnection().onMovement(move.getChange(), move.getLocation());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+}
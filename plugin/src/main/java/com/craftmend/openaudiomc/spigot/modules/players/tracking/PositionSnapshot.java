@@ -0,0 +1,105 @@
+package com.craftmend.openaudiomc.spigot.modules.players.tracking;
+
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
+import com.craftmend.openaudiomc.spigot.modules.predictive.PredictiveMediaModule;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Primitive copy of the position of every tracked player, indexed by a slot that stays the same while
+ * the player is online. Written once per sample on the main thread, so the async workers never have to touch bukkit
+ * to know where someone is.
+ */
+public class PositionSnapshot {
+
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot = 0;
+
+    private boolean[] present = new boolean[0];
+    private int[] worlds = new int[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private double[] z = new double[0];
+    private float[] yaw = new float[0];
+    private float[] pitch = new float[0];
+
+    public synchronized int allocate() {
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        if (slot >= present.length) grow(Math.max(16, present.length * 2));
+        present[slot] = false;
+        return slot;
+    }
+
+    public synchronized void release(int slot) {
+        present[slot] = false;
+        freeSlots.push(slot);
+    }
+
+    /**
+     * Store a new sample for a slot
+     *
+     * @return what changed compared to the previous sample, or null if nothing did (or if this was the first sample)
+     */
+    public synchronized MovementGranularity update(int slot, int world, double newX, double newY, double newZ, float newYaw, float newPitch) {
+        MovementGranularity change = present[slot] ? classify(slot, world, newX, newY, newZ, newYaw, newPitch) : null;
+
+        present[slot] = true;
+        worlds[slot] = world;
+        x[slot] = newX;
+        y[slot] = newY;
+        z[slot] = newZ;
+        yaw[slot] = newYaw;
+        pitch[slot] = newPitch;
+        return change;
+    }
+
+    public synchronized int getWorld(int slot) {
+        return worlds[slot];
+    }
+
+    public synchronized int getBlockX(int slot) {
+        return floor(x[slot]);
+    }
+
+    public synchronized int getBlockZ(int slot) {
+        return floor(z[slot]);
+    }
+
+    private MovementGranularity classify(int slot, int world, double newX, double newY, double newZ, float newYaw, float newPitch) {
+        if (worlds[slot] != world) return MovementGranularity.WORLD;
+
+        int newBlockX = floor(newX);
+        int newBlockY = floor(newY);
+        int newBlockZ = floor(newZ);
+        int oldBlockX = floor(x[slot]);
+        int oldBlockY = floor(y[slot]);
+        int oldBlockZ = floor(z[slot]);
+
+        if (PredictiveMediaModule.toAudioChunk(newBlockX) != PredictiveMediaModule.toAudioChunk(oldBlockX)
+                || PredictiveMediaModule.toAudioChunk(newBlockZ) != PredictiveMediaModule.toAudioChunk(oldBlockZ)) {
+            return MovementGranularity.AUDIO_CHUNK;
+        }
+
+        if (newBlockX != oldBlockX || newBlockY != oldBlockY || newBlockZ != oldBlockZ) return MovementGranularity.BLOCK;
+        if (newX != x[slot] || newY != y[slot] || newZ != z[slot]) return MovementGranularity.SUB_BLOCK;
+        if (newYaw != yaw[slot] || newPitch != pitch[slot]) return MovementGranularity.ROTATION;
+        return null;
+    }
+
+    private void grow(int size) {
+        present = Arrays.copyOf(present, size);
+        worlds = Arrays.copyOf(worlds, size);
+        x = Arrays.copyOf(x, size);
+        y = Arrays.copyOf(y, size);
+        z = Arrays.copyOf(z, size);
+        yaw = Arrays.copyOf(yaw, size);
+        pitch = Arrays.copyOf(pitch, size);
+    }
+
+    private static int floor(double value) {
+        return (int) Math.floor(value);
+    }
+
+}
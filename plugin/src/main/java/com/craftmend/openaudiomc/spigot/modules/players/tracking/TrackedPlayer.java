@@ -0,0 +1,76 @@
+package com.craftmend.openaudiomc.spigot.modules.players.tracking;
+
+import com.craftmend.openaudiomc.spigot.modules.players.enums.MovementGranularity;
+import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+import lombok.Getter;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * A player that's being followed by the movement tracker, together with their slot in the position snapshot
+ * and the change that still has to be handled
+ */
+public class TrackedPlayer {
+
+    @Getter private final Player player;
+    @Getter private final SpigotConnection connection;
+    @Getter private final int slot;
+    // re-used so sampling doesn't allocate a location every tick
+    @Getter private final Location sample;
+
+    // change that accumulated since the last capture
+    private MovementGranularity pending = null;
+    // change and location that got handed to the tick engine, but haven't been handled yet
+    private Move captured = null;
+
+    public TrackedPlayer(Player player, SpigotConnection connection, int slot) {
+        this.player = player;
+        this.connection = connection;
+        this.slot = slot;
+        this.sample = player.getLocation();
+    }
+
+    /**
+     * @param change change from the latest sample, can be null
+     * @return true if there's a pending change
+     */
+    synchronized boolean mark(MovementGranularity change) {
+        pending = MovementGranularity.max(pending, change);
+        return pending != null;
+    }
+
+    synchronized void force() {
+        pending = MovementGranularity.WORLD;
+    }
+
+    /**
+     * Freeze the pending change together with the current sample, main thread only.
+     * Changes that come in after this wait for the next capture, so they never get handled with an older location
+     */
+    synchronized void capture() {
+        MovementGranularity change = captured == null ? pending : MovementGranularity.max(captured.change, pending);
+        captured = new Move(change, sample.clone());
+        pending = null;
+    }
+
+    /**
+     * @return the captured change and its location, or null if there's nothing to handle
+     */
+    synchronized Move drain() {
+        Move move = captured;
+        captured = null;
+        return move;
+    }
+
+    @Getter
+    static final class Move {
+        private final MovementGranularity change;
+        private final Location location;
+
+        private Move(MovementGranularity change, Location location) {
+            this.change = change;
+            this.location = location;
+        }
+    }
+
+}
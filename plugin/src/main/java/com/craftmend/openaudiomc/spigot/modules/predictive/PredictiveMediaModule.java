@@ -27,6 +27,9 @@ import java.nio.file.Files;
 
 public class PredictiveMediaModule {
 
+    // size of a predictive audio chunk, in blocks
+    public static final int AUDIO_CHUNK_SIZE = 150;
+
     private final ChunkMapSerializer chunkMapSerializer = new ChunkMapSerializer();
     private int chunkAge = 60 * 60 * 10;  // chunk values are kept for 10 hours
     private int maxChunkData = 70;       // keep up to 70 chunks
@@ -97,9 +100,10 @@ public class PredictiveMediaModule {
     }
 
     private Integer step(Integer i) {
-        if (i == 0) {
-            return 0;
-        }
-        return i / 150;
+        return toAudioChunk(i);
+    }
+
+    public static int toAudioChunk(int block) {
+        return block / AUDIO_CHUNK_SIZE;
     }
 }
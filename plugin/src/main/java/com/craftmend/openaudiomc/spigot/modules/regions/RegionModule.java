@@ -3,27 +3,42 @@ package com.craftmend.openaudiomc.spigot.modules.regions;
 import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.storage.interfaces.ConfigurationImplementation;
 import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.generic.utils.TimingWheel;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.generic.storage.enums.StorageLocation;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
 import com.craftmend.openaudiomc.spigot.modules.regions.adapters.LegacyRegionAdapter;
 import com.craftmend.openaudiomc.spigot.modules.regions.adapters.ModernRegionAdapter;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.AudioRegionIndex;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.RegionPresenceIndex;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.AbstractRegionAdapter;
+import com.craftmend.openaudiomc.spigot.modules.regions.listeners.RegionCommandListener;
 import com.craftmend.openaudiomc.spigot.modules.regions.objects.RegionMedia;
 import com.craftmend.openaudiomc.spigot.modules.regions.objects.RegionProperties;
 import com.craftmend.openaudiomc.spigot.services.server.enums.ServerVersion;
 
 import lombok.Getter;
+import org.bukkit.Bukkit;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class RegionModule {
 
+    // how often the audio region index gets re-imported from worldguard, in ticks
+    private static final int INDEX_REFRESH_INTERVAL = 20 * 5;
+
     @Getter
-    private Map<String, RegionProperties> regionPropertiesMap = new HashMap<>();
+    private Map<String, RegionProperties> regionPropertiesMap = new ConcurrentHashMap<>();
     private Map<String, RegionMedia> regionMediaMap = new HashMap<>();
     @Getter private AbstractRegionAdapter regionAdapter;
+    @Getter private AudioRegionIndex audioRegionIndex = new AudioRegionIndex();
+    @Getter private RegionPresenceIndex regionPresence = new RegionPresenceIndex();
+    // expiry of temporary regions, advanced once per second
+    @Getter private TimingWheel expiryWheel = new TimingWheel(64);
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
 
     public RegionModule(OpenAudioMcSpigot openAudioMcSpigot, @Nullable AbstractRegionAdapter customAdapter) {
         OpenAudioLogger.toConsole("Turns out you have WorldGuard installed! enabling regions and the region tasks..");
@@ -73,6 +88,12 @@ public class RegionModule {
             }
         }
 
+        // worldguard doesn't tell us when regions change, so the index also gets refreshed every now and then
+        rebuildIndex();
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(openAudioMcSpigot, this::rebuildIndex, INDEX_REFRESH_INTERVAL, INDEX_REFRESH_INTERVAL);
+        openAudioMcSpigot.registerEvents(new RegionCommandListener(this));
+        Bukkit.getScheduler().runTaskTimerAsynchronously(openAudioMcSpigot, expiryWheel::advance, 20, 20);
+
         OpenAudioMc.getInstance().getMediaModule().getResetTriggers().add(() -> {
             regionMediaMap.clear();
         });
@@ -80,10 +101,33 @@ public class RegionModule {
 
     public void registerRegion(String id, RegionProperties propperties) {
         regionPropertiesMap.put(id, propperties);
+        onRegionsChanged();
     }
 
     public void removeRegion(String id) {
         regionPropertiesMap.remove(id);
+        onRegionsChanged();
+    }
+
+    /**
+     * Should be called whenever audio regions, or the WorldGuard regions behind them, might have changed
+     */
+    public void onRegionsChanged() {
+        regionAdapter.invalidateCache();
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            Bukkit.getScheduler().runTask(OpenAudioMcSpigot.getInstance(), this::rebuildIndex);
+        }
+    }
+
+    /**
+     * Re-import all audio regions into the index, has to run on the main thread since it reads from WorldGuard
+     */
+    public void rebuildIndex() {
+        rebuildScheduled.set(false);
+        if (!regionAdapter.isIndexable()) return;
+        if (audioRegionIndex.rebuild(regionAdapter, Bukkit.getWorlds(), regionPropertiesMap.keySet())) {
+            regionAdapter.invalidateCache();
+        }
     }
 
     public void forceUpdateRegions() {
@@ -102,5 +146,6 @@ public class RegionModule {
     public void removeRegionMedia(String id, String source) {
         regionMediaMap.remove(source);
         regionPropertiesMap.remove(id);
+        onRegionsChanged();
     }
 }
@@ -6,6 +6,7 @@ import com.craftmend.openaudiomc.spigot.modules.regions.RegionModule;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.AbstractRegionAdapter;
 import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.ApiRegion;
 import com.sk89q.worldguard.bukkit.WGBukkit;
+import com.sk89q.worldguard.protection.managers.RegionManager;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -50,6 +51,18 @@ public class LegacyRegionAdapter extends AbstractRegionAdapter {
         return r;
     }
 
+    @Override
+    public ProtectedRegion getWorldGuardRegion(World world, String id) {
+        RegionManager manager = WGBukkit.getRegionManager(world);
+        if (manager == null) return null;
+        return manager.getRegion(id);
+    }
+
+    @Override
+    public boolean isIndexable() {
+        return true;
+    }
+
     @Override
     public boolean doesRegionExist(String name) {
         for (World world : Bukkit.getWorlds()) {
@@ -56,6 +56,18 @@ public class ModernRegionAdapter extends AbstractRegionAdapter {
         return r;
     }
 
+    @Override
+    public ProtectedRegion getWorldGuardRegion(World world, String id) {
+        RegionManager manager = WorldGuard.getInstance().getPlatform().getRegionContainer().get(BukkitAdapter.adapt(world));
+        if (manager == null) return null;
+        return manager.getRegion(id);
+    }
+
+    @Override
+    public boolean isIndexable() {
+        return true;
+    }
+
     @Override
     public boolean doesRegionExist(String name) {
         RegionContainer container = WorldGuard.getInstance().getPlatform().getRegionContainer();
@@ -0,0 +1,100 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.cache;
+
+import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.IRegion;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerWorld;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of audio region lookups, keyed by world and block position.
+ * Players standing still or walking around in the same area keep asking WorldGuard the same question, and its queries
+ * (and wrapping the results) are way more expensive than a hash lookup.
+ *
+ * Only the filtered audio regions are cached, so it can be thrown away whenever regions or their properties change.
+ * WorldGuard doesn't tell us when its own regions change, so entries also expire after a few seconds.
+ */
+public class RegionCache {
+
+    private static final int MAX_ENTRIES = 8192;
+    private static final long MAX_AGE = 5000;
+
+    private final Map<BlockKey, Entry> entries = new LinkedHashMap<BlockKey, Entry>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<BlockKey, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // bumped on every invalidation, so lookups that started before a clear can't put stale results back
+    private long generation = 0;
+
+    public synchronized List<IRegion> get(int world, int x, int y, int z) {
+        BlockKey key = new BlockKey(world, SpeakerWorld.pack(x, y, z));
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.currentTimeMillis() - entry.created > MAX_AGE) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.regions;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param generation the generation that was current before the lookup started
+     * @param regions    immutable lookup result
+     */
+    public synchronized void put(long generation, int world, int x, int y, int z, List<IRegion> regions) {
+        if (generation != this.generation) return;
+        entries.put(new BlockKey(world, SpeakerWorld.pack(x, y, z)), new Entry(regions, System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class BlockKey {
+        private final int world;
+        private final long position;
+
+        private BlockKey(int world, long position) {
+            this.world = world;
+            this.position = position;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            BlockKey other = (BlockKey) o;
+            return world == other.world && position == other.position;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = position * 0x9E3779B97F4A7C15L + world;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Entry {
+        private final List<IRegion> regions;
+        private final long created;
+
+        private Entry(List<IRegion> regions, long created) {
+            this.regions = regions;
+            this.created = created;
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.index;
+
+import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.AbstractRegionAdapter;
+import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.ApiRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import org.bukkit.World;
+
+import java.util.*;
+
+/**
+ * Snapshot of the bounds of all WorldGuard regions that have audio attached to them, in one R-tree per world.
+ * Only the audio regions get imported, which usually is a tiny fraction of all regions on a server.
+ *
+ * The snapshot gets rebuilt on the main thread (the only place where WorldGuard may be touched) and swapped in as a whole,
+ * so the async region handlers can query it without any locking.
+ */
+public class AudioRegionIndex {
+
+    public static final String GLOBAL_REGION = "__global__";
+
+    private volatile Snapshot snapshot = null;
+
+    /**
+     * @return true if a snapshot has been built and can be queried
+     */
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Import all audio regions from WorldGuard, has to be called from the main thread
+     *
+     * @param adapter   adapter to load regions through
+     * @param worlds    worlds to import
+     * @param regionIds ids of all regions that have audio properties
+     * @return true if the new snapshot differs from the previous one
+     */
+    public boolean rebuild(AbstractRegionAdapter adapter, Collection<World> worlds, Collection<String> regionIds) {
+        Map<String, RegionTree> trees = new HashMap<>();
+        boolean global = false;
+
+        for (World world : worlds) {
+            List<RegionShape> shapes = new ArrayList<>();
+            for (String id : regionIds) {
+                if (id.equalsIgnoreCase(GLOBAL_REGION)) {
+                    global = true;
+                    continue;
+                }
+
+                ProtectedRegion region = adapter.getWorldGuardRegion(world, id);
+                if (region != null) shapes.add(RegionShape.fromWorldGuard(region));
+            }
+            if (!shapes.isEmpty()) trees.put(world.getName(), new RegionTree(shapes));
+        }
+
+        Snapshot rebuilt = new Snapshot(trees, global);
+        Snapshot previous = snapshot;
+        snapshot = rebuilt;
+        return previous == null || !previous.sameAs(rebuilt);
+    }
+
+    /**
+     * @param world world name
+     * @param x     block x
+     * @param y     block y
+     * @param z     block z
+     * @return all audio regions containing the block, or only the global region if there are none
+     */
+    public Set<ApiRegion> query(String world, int x, int y, int z) {
+        Snapshot snapshot = this.snapshot;
+        Set<ApiRegion> regions = new HashSet<>();
+        if (snapshot == null) return regions;
+
+        RegionTree tree = snapshot.trees.get(world);
+        if (tree != null) tree.query(x, y, z, regions);
+        if (regions.isEmpty() && snapshot.global) regions.add(GLOBAL);
+        return regions;
+    }
+
+    /**
+     * @param world    world name
+     * @param regionId region id
+     * @return the imported shape of the region, or null if it isn't in the index
+     */
+    public RegionShape getShape(String world, String regionId) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) return null;
+        RegionTree tree = snapshot.trees.get(world);
+        return tree == null ? null : tree.getShape(regionId);
+    }
+
+    private static final ApiRegion GLOBAL = new ApiRegion() {
+        @Override
+        public int getPriority() {
+            return 10;
+        }
+
+        @Override
+        public String getName() {
+            return GLOBAL_REGION;
+        }
+    };
+
+    private static final class Snapshot {
+        private final Map<String, RegionTree> trees;
+        private final boolean global;
+
+        private Snapshot(Map<String, RegionTree> trees, boolean global) {
+            this.trees = trees;
+            this.global = global;
+        }
+
+        private boolean sameAs(Snapshot other) {
+            if (global != other.global || !trees.keySet().equals(other.trees.keySet())) return false;
+            for (Map.Entry<String, RegionTree> entry : trees.entrySet()) {
+                if (!entry.getValue().getShapes().equals(other.trees.get(entry.getKey()).getShapes())) return false;
+            }
+            return true;
+        }
+    }
+
+}
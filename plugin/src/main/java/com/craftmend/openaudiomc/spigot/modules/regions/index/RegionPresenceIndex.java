@@ -0,0 +1,46 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.index;
+
+import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reverse index from audio region id to the connections that are currently inside of it,
+ * kept up to date by the region handlers. Used to only update the affected players when a region changes,
+ * instead of going over every player and all of their regions.
+ */
+public class RegionPresenceIndex {
+
+    private final Map<String, Set<SpigotConnection>> presence = new ConcurrentHashMap<>();
+
+    public void enter(String regionId, SpigotConnection connection) {
+        presence.compute(regionId, (id, connections) -> {
+            if (connections == null) connections = ConcurrentHashMap.newKeySet();
+            connections.add(connection);
+            return connections;
+        });
+    }
+
+    public void leave(String regionId, SpigotConnection connection) {
+        presence.computeIfPresent(regionId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * @param regionId region id
+     * @return a snapshot of all connections that are inside the region
+     */
+    public Collection<SpigotConnection> getConnections(String regionId) {
+        Set<SpigotConnection> connections = presence.get(regionId);
+        if (connections == null) return Collections.emptyList();
+        return new ArrayList<>(connections);
+    }
+
+}
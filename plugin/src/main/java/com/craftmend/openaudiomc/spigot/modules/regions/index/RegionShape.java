@@ -0,0 +1,122 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.index;
+
+import com.craftmend.openaudiomc.spigot.modules.regions.interfaces.ApiRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedPolygonalRegion;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Immutable copy of the bounds of a WorldGuard region, so containment checks can be done from any thread
+ * without touching WorldGuard. Cuboids only use their bounding box, polygons also keep their points.
+ */
+@Getter
+@EqualsAndHashCode
+public class RegionShape implements ApiRegion {
+
+    private final String name;
+    private final int priority;
+    private final int minX, minY, minZ;
+    private final int maxX, maxY, maxZ;
+    // null for anything that isn't a polygon
+    private final int[] pointsX;
+    private final int[] pointsZ;
+
+    public RegionShape(String name, int priority, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int[] pointsX, int[] pointsZ) {
+        this.name = name;
+        this.priority = priority;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.pointsX = pointsX;
+        this.pointsZ = pointsZ;
+    }
+
+    public static RegionShape fromWorldGuard(ProtectedRegion region) {
+        int[] pointsX = null;
+        int[] pointsZ = null;
+
+        // the vector types differ between worldguard 6 and 7, but they have the same getters
+        if (region instanceof ProtectedPolygonalRegion) {
+            int size = region.getPoints().size();
+            pointsX = new int[size];
+            pointsZ = new int[size];
+            for (int i = 0; i < size; i++) {
+                pointsX[i] = region.getPoints().get(i).getBlockX();
+                pointsZ[i] = region.getPoints().get(i).getBlockZ();
+            }
+        }
+
+        return new RegionShape(
+                region.getId(),
+                region.getPriority(),
+                region.getMinimumPoint().getBlockX(),
+                region.getMinimumPoint().getBlockY(),
+                region.getMinimumPoint().getBlockZ(),
+                region.getMaximumPoint().getBlockX(),
+                region.getMaximumPoint().getBlockY(),
+                region.getMaximumPoint().getBlockZ(),
+                pointsX,
+                pointsZ
+        );
+    }
+
+    public boolean contains(int x, int y, int z) {
+        if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return false;
+        return pointsX == null || polygonContains(x, z);
+    }
+
+    /**
+     * Horizontal distance from a position inside of the region to its closest edge. Both cuboids and polygons are
+     * measured against their block coordinates, so pass the center of a block to get the same distance for both.
+     *
+     * @param x position x
+     * @param z position z
+     * @return distance in blocks, or 0 (or less) when the position is on or outside of the edge
+     */
+    public double distanceToEdge(double x, double z) {
+        if (pointsX == null) return Math.min(Math.min(x - minX, maxX - x), Math.min(z - minZ, maxZ - z));
+
+        double closest = Double.MAX_VALUE;
+        for (int i = 0, j = pointsX.length - 1; i < pointsX.length; j = i++) {
+            closest = Math.min(closest, distanceToSegment(x, z, pointsX[j], pointsZ[j], pointsX[i], pointsZ[i]));
+        }
+        return closest;
+    }
+
+    private static double distanceToSegment(double x, double z, int x1, int z1, int x2, int z2) {
+        double dx = x2 - x1;
+        double dz = z2 - z1;
+        double lengthSquared = (dx * dx) + (dz * dz);
+        double t = lengthSquared == 0 ? 0 : ((x - x1) * dx + (z - z1) * dz) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ox = x - (x1 + t * dx);
+        double oz = z - (z1 + t * dz);
+        return Math.sqrt((ox * ox) + (oz * oz));
+    }
+
+    // even-odd test, points on the outline count as inside just like they do in worldguard
+    private boolean polygonContains(int x, int z) {
+        boolean inside = false;
+        for (int i = 0, j = pointsX.length - 1; i < pointsX.length; j = i++) {
+            int xi = pointsX[i], zi = pointsZ[i];
+            int xj = pointsX[j], zj = pointsZ[j];
+
+            if (onEdge(x, z, xi, zi, xj, zj)) return true;
+            if ((zi > z) != (zj > z) && x < (double) (xj - xi) * (z - zi) / (zj - zi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static boolean onEdge(int x, int z, int x1, int z1, int x2, int z2) {
+        long cross = (long) (x - x1) * (z2 - z1) - (long) (z - z1) * (x2 - x1);
+        if (cross != 0) return false;
+        return x >= Math.min(x1, x2) && x <= Math.max(x1, x2) && z >= Math.min(z1, z2) && z <= Math.max(z1, z2);
+    }
+
+}
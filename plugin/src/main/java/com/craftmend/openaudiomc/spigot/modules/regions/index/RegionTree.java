@@ -0,0 +1,123 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.index;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable R-tree of the audio regions in a single world, bulk loaded with sort-tile-recursive packing.
+ * It never changes after being built, so any number of threads can query it without locking,
+ * changes are made by building a new tree and swapping it in.
+ */
+public class RegionTree {
+
+    private static final int NODE_CAPACITY = 8;
+
+    @Getter private final List<RegionShape> shapes;
+    private final Map<String, RegionShape> byName = new HashMap<>();
+    private final Node root;
+
+    public RegionTree(List<RegionShape> shapes) {
+        this.shapes = shapes;
+        for (RegionShape shape : shapes) byName.put(shape.getName(), shape);
+
+        if (shapes.isEmpty()) {
+            root = null;
+            return;
+        }
+
+        List<Node> level = pack(shapes, s -> s.getMinX() + s.getMaxX(), s -> s.getMinZ() + s.getMaxZ(), Node::leaf);
+        while (level.size() > 1) {
+            level = pack(level, n -> n.minX + n.maxX, n -> n.minZ + n.maxZ, Node::branch);
+        }
+        root = level.get(0);
+    }
+
+    /**
+     * @param x    block x
+     * @param y    block y
+     * @param z    block z
+     * @param into collection to add all regions containing the block to
+     */
+    public void query(int x, int y, int z, Collection<? super RegionShape> into) {
+        if (root != null) root.query(x, y, z, into);
+    }
+
+    public RegionShape getShape(String name) {
+        return byName.get(name);
+    }
+
+    private static <T> List<Node> pack(List<T> items, ToIntFunction<T> centerX, ToIntFunction<T> centerZ, Function<List<T>, Node> create) {
+        int nodeCount = (items.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = slices * NODE_CAPACITY;
+
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingInt(centerX));
+
+        List<Node> nodes = new ArrayList<>(nodeCount);
+        for (int sliceStart = 0; sliceStart < sorted.size(); sliceStart += sliceSize) {
+            List<T> slice = new ArrayList<>(sorted.subList(sliceStart, Math.min(sliceStart + sliceSize, sorted.size())));
+            slice.sort(Comparator.comparingInt(centerZ));
+            for (int start = 0; start < slice.size(); start += NODE_CAPACITY) {
+                nodes.add(create.apply(slice.subList(start, Math.min(start + NODE_CAPACITY, slice.size()))));
+            }
+        }
+        return nodes;
+    }
+
+    private static final class Node {
+        private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        private Node[] children;
+        private RegionShape[] entries;
+
+        private static Node leaf(List<RegionShape> shapes) {
+            Node node = new Node();
+            node.entries = shapes.toArray(new RegionShape[0]);
+            for (RegionShape shape : node.entries) {
+                node.expand(shape.getMinX(), shape.getMinY(), shape.getMinZ(), shape.getMaxX(), shape.getMaxY(), shape.getMaxZ());
+            }
+            return node;
+        }
+
+        private static Node branch(List<Node> children) {
+            Node node = new Node();
+            node.children = children.toArray(new Node[0]);
+            for (Node child : node.children) {
+                node.expand(child.minX, child.minY, child.minZ, child.maxX, child.maxY, child.maxZ);
+            }
+            return node;
+        }
+
+        private void expand(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.minX = Math.min(this.minX, minX);
+            this.minY = Math.min(this.minY, minY);
+            this.minZ = Math.min(this.minZ, minZ);
+            this.maxX = Math.max(this.maxX, maxX);
+            this.maxY = Math.max(this.maxY, maxY);
+            this.maxZ = Math.max(this.maxZ, maxZ);
+        }
+
+        private void query(int x, int y, int z, Collection<? super RegionShape> into) {
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) return;
+
+            if (entries != null) {
+                for (RegionShape shape : entries) {
+                    if (shape.contains(x, y, z)) into.add(shape);
+                }
+                return;
+            }
+
+            for (Node child : children) child.query(x, y, z, into);
+        }
+    }
+
+}
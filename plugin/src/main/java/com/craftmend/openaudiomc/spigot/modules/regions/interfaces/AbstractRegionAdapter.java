@@ -1,9 +1,16 @@
 package com.craftmend.openaudiomc.spigot.modules.regions.interfaces;
 
+import com.craftmend.openaudiomc.OpenAudioMc;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.regions.RegionModule;
+import com.craftmend.openaudiomc.spigot.modules.regions.cache.RegionCache;
+import com.craftmend.openaudiomc.spigot.modules.regions.index.AudioRegionIndex;
 import com.craftmend.openaudiomc.spigot.modules.regions.objects.Region;
+import com.craftmend.openaudiomc.spigot.services.server.WorldIdRegistry;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
@@ -11,6 +18,8 @@ import java.util.*;
 public abstract class AbstractRegionAdapter {
 
     private RegionModule regionModule;
+    private final RegionCache regionCache = new RegionCache();
+    private final boolean usePriority = OpenAudioMc.getInstance().getConfiguration().getBoolean(StorageKey.SETTINGS_USE_WG_PRIORITY);
 
     public AbstractRegionAdapter(RegionModule regionModule) {
         this.regionModule = regionModule;
@@ -19,10 +28,58 @@ public abstract class AbstractRegionAdapter {
     public abstract Set<ApiRegion> getRegionsAtLocation(Location location);
     public abstract boolean doesRegionExist(String name);
 
+    /**
+     * Adapters that can expose WorldGuard regions get their audio regions imported into the AudioRegionIndex,
+     * so lookups don't have to go through WorldGuard at all. Others keep querying getRegionsAtLocation.
+     *
+     * @param world world
+     * @param id    region id
+     * @return the worldguard region, or null if it doesn't exist (or the adapter can't provide it)
+     */
+    public ProtectedRegion getWorldGuardRegion(World world, String id) {
+        return null;
+    }
+
+    /**
+     * @return true if this adapter implements getWorldGuardRegion
+     */
+    public boolean isIndexable() {
+        return false;
+    }
+
     public List<IRegion> getAudioRegions(Location location) {
+        WorldIdRegistry worldIds = OpenAudioMcSpigot.getInstance().getServerService().getWorldIds();
+        int world = worldIds.getId(location.getWorld().getName());
+        if (world == WorldIdRegistry.UNKNOWN) world = worldIds.register(location.getWorld().getName());
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        List<IRegion> cached = regionCache.get(world, x, y, z);
+        if (cached != null) return cached;
+
+        long generation = regionCache.getGeneration();
+        AudioRegionIndex index = regionModule.getAudioRegionIndex();
+        Set<ApiRegion> applicable = isIndexable() && index.isReady()
+                ? prioritySort(index.query(location.getWorld().getName(), x, y, z), 0, usePriority)
+                : getRegionsAtLocation(location);
+
+        List<IRegion> regions = Collections.unmodifiableList(filterAudioRegions(applicable));
+        regionCache.put(generation, world, x, y, z, regions);
+        return regions;
+    }
+
+    /**
+     * Drop all cached region lookups, should be called whenever audio regions or their WorldGuard regions change
+     */
+    public void invalidateCache() {
+        regionCache.invalidate();
+    }
+
+    private List<IRegion> filterAudioRegions(Set<ApiRegion> applicable) {
         List<IRegion> regions = new ArrayList<>();
         int prio = 0;
-        for (ApiRegion r : getRegionsAtLocation(location)) {
+        for (ApiRegion r : applicable) {
             if (regionModule.getRegionPropertiesMap().get(r.getName()) == null) continue;
             if (r.getPriority() > prio) {
                 prio = r.getPriority();
@@ -0,0 +1,53 @@
+package com.craftmend.openaudiomc.spigot.modules.regions.listeners;
+
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.regions.RegionModule;
+import lombok.AllArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.server.ServerCommandEvent;
+
+/**
+ * WorldGuard doesn't fire events when regions get redefined, moved or removed,
+ * so re-import audio regions after anything that looks like a region command ran
+ */
+@AllArgsConstructor
+public class RegionCommandListener implements Listener {
+
+    private RegionModule regionModule;
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
+        handle(event.getMessage());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onServerCommand(ServerCommandEvent event) {
+        handle(event.getCommand());
+    }
+
+    private void handle(String command) {
+        String label = command.startsWith("/") ? command.substring(1) : command;
+        int end = label.indexOf(' ');
+        if (end != -1) label = label.substring(0, end);
+        label = label.toLowerCase();
+        if (label.startsWith("worldguard:")) label = label.substring("worldguard:".length());
+
+        switch (label) {
+            case "rg":
+            case "region":
+            case "regions":
+            case "worldguard":
+            case "wg":
+                // the command itself runs after this event, so refresh once it's done
+                Bukkit.getScheduler().runTask(OpenAudioMcSpigot.getInstance(), regionModule::onRegionsChanged);
+                break;
+            default:
+                break;
+        }
+    }
+
+}
@@ -3,12 +3,13 @@ package com.craftmend.openaudiomc.spigot.modules.regions.objects;
 import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.media.objects.Media;
 import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
+import com.craftmend.openaudiomc.generic.utils.TimingWheel;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
-import org.bukkit.Bukkit;
+import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
 
 public class TimedRegionProperties extends RegionProperties {
 
-    private int task = -1;
+    private TimingWheel.Timeout expiry;
     private String id;
     private Media media;
 
@@ -16,10 +17,10 @@ public class TimedRegionProperties extends RegionProperties {
         super(source, 100, 1000);
         this.id = id;
 
-        this.task = Bukkit.getScheduler().scheduleAsyncDelayedTask(OpenAudioMcSpigot.getInstance(), () -> {
+        this.expiry = OpenAudioMcSpigot.getInstance().getRegionModule().getExpiryWheel().schedule(timeInSeconds, () -> {
             OpenAudioMcSpigot.getInstance().getRegionModule().removeRegion(this.id);
             forceUpdateClients();
-        }, 20 * timeInSeconds);
+        });
 
         this.media = new RegionMedia(source, 100, 1000);
         this.media.setLoop(OpenAudioMc.getInstance().getConfiguration().getBoolean(StorageKey.SETTINGS_LOOP_TEMP_REGIONS));
@@ -27,14 +28,13 @@ public class TimedRegionProperties extends RegionProperties {
     }
 
     private void forceUpdateClients() {
-        OpenAudioMcSpigot.getInstance().getPlayerModule().getClients()
-                .stream()
-                .filter(client -> client.getRegions().stream().anyMatch(region -> region.getId().equals(id)))
-                .forEach(client -> client.getLocationDataWatcher().forceTicK());
+        OpenAudioMcSpigot.getInstance().getRegionModule().getRegionPresence()
+                .getConnections(id)
+                .forEach(SpigotConnection::forceUpdate);
     }
 
     public void destroy() {
-        Bukkit.getScheduler().cancelTask(task);
+        expiry.cancel();
         forceUpdateClients();
     }
 
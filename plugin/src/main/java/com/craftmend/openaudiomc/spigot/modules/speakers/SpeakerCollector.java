@@ -5,6 +5,7 @@ import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.obj
 import com.craftmend.openaudiomc.generic.utils.TypeCounter;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerGrid;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.ApplicableSpeaker;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 import lombok.AllArgsConstructor;
@@ -20,23 +21,34 @@ public class SpeakerCollector {
     private SpeakerModule speakerModule;
 
     public Collection<ApplicableSpeaker> getApplicableSpeakers(Location location) {
-        List<Speaker> applicableSpeakers = new ArrayList<>(speakerModule.getSpeakerMap().values());
         Collection<ApplicableSpeaker> speakers = new ArrayList<>();
+        List<Speaker> applicableSpeakers = new ArrayList<>();
+        collectSpeakers(location, applicableSpeakers);
 
-        applicableSpeakers.removeIf(speaker -> !speaker.getLocation().getWorld().equals(location.getWorld().getName()));
-        applicableSpeakers.removeIf(speaker -> speaker.getLocation().toBukkit().distance(location) > speaker.getRadius());
-
-        applicableSpeakers.forEach(speaker -> {
+        for (Speaker speaker : applicableSpeakers) {
             speakers.add(new ApplicableSpeaker(
                     speaker,
                     speaker.getSpeakerType(),
                     Vector3.from(speaker.getLocation())
             ));
-        });
+        }
 
         return speakers;
     }
 
+    /**
+     * Add all speakers that can be heard from a location to a collection, without wrapping them
+     *
+     * @param location listener location
+     * @param into     collection to fill
+     */
+    public void collectSpeakers(Location location, Collection<Speaker> into) {
+        // only look at the cells around the player, in the world they're in
+        SpeakerGrid grid = speakerModule.getGrid(location.getWorld().getName());
+        if (grid == null) return;
+        grid.collect(location.getX(), location.getY(), location.getZ(), into);
+    }
+
     public SpeakerType guessSpeakerType(Location location, String source) {
         Collection<ApplicableSpeaker> speakers = getApplicableSpeakers(location);
         speakers.removeIf(other -> !other.getSpeaker().getMedia().getSource().equals(source));
@@ -5,18 +5,27 @@ import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerGrid;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerWorld;
 import com.craftmend.openaudiomc.spigot.modules.speakers.interfaces.IRayTracer;
+import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.ChunkSolidityListener;
 import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.SpeakerSelectListener;
+import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.SpeakerValidationListener;
 import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.WorldLoadListener;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.*;
-import com.craftmend.openaudiomc.spigot.modules.speakers.tasks.SpeakerGarbageCollection;
-import com.craftmend.openaudiomc.spigot.modules.speakers.tracing.EstimatedRayTracer;
+import com.craftmend.openaudiomc.spigot.modules.speakers.storage.SpeakerStore;
+import com.craftmend.openaudiomc.spigot.modules.speakers.tasks.ObstructionUpdateTask;
+import com.craftmend.openaudiomc.spigot.modules.speakers.tasks.SpeakerValidationTask;
+import com.craftmend.openaudiomc.spigot.modules.speakers.tracing.ChunkSolidityCache;
+import com.craftmend.openaudiomc.spigot.modules.speakers.tracing.VoxelRayTracer;
+import com.craftmend.openaudiomc.spigot.services.server.WorldIdRegistry;
 import com.craftmend.openaudiomc.spigot.services.server.enums.ServerVersion;
 import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.SpeakerCreateListener;
 import com.craftmend.openaudiomc.spigot.modules.speakers.listeners.SpeakerDestroyListener;
 
 import lombok.Getter;
 import org.bukkit.*;
+import org.bukkit.block.Block;
 
 import java.util.*;
 
@@ -24,18 +33,26 @@ public class SpeakerModule {
 
     @Getter private SpeakerLoader loader;
     @Getter private SpeakerCollector collector;
+    @Getter private SpeakerStore store;
+    @Getter private ObstructionUpdateTask obstructionUpdateTask;
+    @Getter private SpeakerValidationTask validationTask;
 
     public static final SpeakerType DEFAULT_SPEAKER_TYPE = SpeakerType.SPEAKER_2D;
-    @Getter private Map<MappedLocation, Speaker> speakerMap = new HashMap<>();
+    private final WorldIdRegistry worldIds;
+    // indexed by world id, grows when a new world gets its first speaker
+    private volatile SpeakerWorld[] speakerWorlds = new SpeakerWorld[0];
     private Map<String, SpeakerMedia> speakerMediaMap = new HashMap<>();
     @Getter private Material playerSkullItem;
     @Getter private Material playerSkullBlock;
-    @Getter private Map<String, Set<QueuedSpeaker>> waitingWorlds = new HashMap<>();
     @Getter private ServerVersion version;
 
-    private EstimatedRayTracer estimatedRayTracer = new EstimatedRayTracer();
+    // only available on modern servers, chunk snapshots can't tell block types on 1.12
+    private VoxelRayTracer voxelRayTracer;
+    // legacy servers could only trace through bukkit on the main thread, so nothing is obstructed there
+    private final IRayTracer unobstructedTracer = (start, end) -> 0;
 
     public SpeakerModule(OpenAudioMcSpigot openAudioMcSpigot) {
+        worldIds = openAudioMcSpigot.getServerService().getWorldIds();
         openAudioMcSpigot.registerEvents(
                 new SpeakerSelectListener(this),
                 new SpeakerCreateListener(openAudioMcSpigot, this),
@@ -43,14 +60,26 @@ public class SpeakerModule {
                 new WorldLoadListener()
         );
 
+        store = new SpeakerStore(openAudioMcSpigot.getDataFolder());
         collector = new SpeakerCollector(this);
         loader = new SpeakerLoader(this);
 
         initializeVersion();
+
+        // validate speakers when their chunks load
+        validationTask = new SpeakerValidationTask(this);
+        openAudioMcSpigot.registerEvents(new SpeakerValidationListener(validationTask));
+
+        if (version == ServerVersion.MODERN) {
+            ChunkSolidityCache chunkSolidityCache = new ChunkSolidityCache(openAudioMcSpigot);
+            voxelRayTracer = new VoxelRayTracer(chunkSolidityCache);
+            openAudioMcSpigot.registerEvents(new ChunkSolidityListener(chunkSolidityCache));
+        }
+
         loader.loadFiles();
 
-        // setup garbage system
-        new SpeakerGarbageCollection(this);
+        // keep obstructions up to date while players walk around
+        obstructionUpdateTask = new ObstructionUpdateTask();
 
         // reset with new addon
         OpenAudioMc.getInstance().getMediaModule().getResetTriggers().add(() -> {
@@ -58,9 +87,14 @@ public class SpeakerModule {
         });
     }
 
+    public void onDisable() {
+        store.close();
+    }
+
     public IRayTracer getRayTracer() {
-        // provide a default ray tracer, just use the simple one for now
-        return estimatedRayTracer;
+        // the voxel tracer is exact and async safe, obstructions are traced off the main thread
+        if (voxelRayTracer != null) return voxelRayTracer;
+        return unobstructedTracer;
     }
 
     private void initializeVersion() {
@@ -88,13 +122,131 @@ public class SpeakerModule {
         }
     }
 
-    public void registerSpeaker(MappedLocation mappedLocation, String source, UUID uuid, int radius, SpeakerType type, Set<ExtraSpeakerOptions> options) {
+    /**
+     * Create and index a speaker, this doesn't store it (see getStore())
+     *
+     * @return the created speaker
+     */
+    public Speaker registerSpeaker(MappedLocation mappedLocation, String source, UUID uuid, int radius, SpeakerType type, Set<ExtraSpeakerOptions> options) {
         Speaker speaker = new Speaker(source, uuid, radius, mappedLocation, type, options);
-        speakerMap.put(mappedLocation, speaker);
+        registerSpeaker(speaker);
+        return speaker;
+    }
+
+    public void registerSpeaker(Speaker speaker) {
+        SpeakerWorld world = getOrCreateWorld(speaker.getLocation().getWorld());
+        Speaker replaced = world.add(speaker);
+        if (replaced != null && voxelRayTracer != null) voxelRayTracer.forget(replaced.getId());
+    }
+
+    /**
+     * Index the stored speakers of a world that got loaded
+     *
+     * @param world bukkit world
+     * @return the amount of speakers that got attached
+     */
+    public int attachWorld(World world) {
+        int attached = 0;
+        for (Speaker speaker : store.attach(world.getName())) {
+            registerSpeaker(speaker);
+            attached++;
+        }
+
+        // the chunks that are already loaded won't fire a load event for these speakers
+        if (attached > 0) validationTask.queueLoadedChunks(world, false);
+        return attached;
+    }
+
+    /**
+     * Drop the index of a world that unloaded, its speakers stay in the store
+     *
+     * @param world bukkit world
+     */
+    public synchronized void detachWorld(World world) {
+        int id = worldIds.getId(world.getName());
+        SpeakerWorld[] worlds = speakerWorlds;
+        if (id == WorldIdRegistry.UNKNOWN || id >= worlds.length || worlds[id] == null) return;
+
+        if (voxelRayTracer != null) {
+            for (Speaker speaker : worlds[id].getSpeakers().values()) voxelRayTracer.forget(speaker.getId());
+        }
+
+        SpeakerWorld[] shrunk = worlds.clone();
+        shrunk[id] = null;
+        speakerWorlds = shrunk;
+        store.detach(world.getName());
+    }
+
+    /**
+     * @param world name of the world
+     * @return the speakers in that world, or null if the world doesn't have any
+     */
+    public SpeakerWorld getWorld(String world) {
+        int id = worldIds.getId(world);
+        SpeakerWorld[] worlds = speakerWorlds;
+        if (id == WorldIdRegistry.UNKNOWN || id >= worlds.length) return null;
+        return worlds[id];
+    }
+
+    /**
+     * @param world name of the world
+     * @return the spatial index of the speakers in that world, or null if the world doesn't have any
+     */
+    public SpeakerGrid getGrid(String world) {
+        SpeakerWorld speakerWorld = getWorld(world);
+        return speakerWorld == null ? null : speakerWorld.getGrid();
+    }
+
+    public void updateRadius(Speaker speaker, int radius) {
+        speaker.setRadius(radius);
+        SpeakerGrid grid = getGrid(speaker.getLocation().getWorld());
+        if (grid != null) grid.expandReach(radius);
+    }
+
+    /**
+     * @return a snapshot of the speakers in a chunk
+     */
+    public List<Speaker> getSpeakersInChunk(String world, int chunkX, int chunkZ) {
+        SpeakerWorld speakerWorld = getWorld(world);
+        if (speakerWorld == null) return Collections.emptyList();
+        return speakerWorld.getChunk(chunkX, chunkZ);
     }
 
     public Speaker getSpeaker(MappedLocation location) {
-        return speakerMap.get(location);
+        return getSpeaker(location.getWorld(), location.getX(), location.getY(), location.getZ());
+    }
+
+    public Speaker getSpeaker(Location location) {
+        return getSpeaker(location.getWorld().getName(), location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    public Speaker getSpeaker(Block block) {
+        return getSpeaker(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public Speaker getSpeaker(String world, int x, int y, int z) {
+        SpeakerWorld speakerWorld = getWorld(world);
+        if (speakerWorld == null) return null;
+        return speakerWorld.get(x, y, z);
+    }
+
+    /**
+     * @return a snapshot of all loaded speakers
+     */
+    public Collection<Speaker> getSpeakers() {
+        List<Speaker> speakers = new ArrayList<>();
+        for (SpeakerWorld world : speakerWorlds) {
+            if (world != null) speakers.addAll(world.getSpeakers().values());
+        }
+        return speakers;
+    }
+
+    public int getSpeakerCount() {
+        int count = 0;
+        for (SpeakerWorld world : speakerWorlds) {
+            if (world != null) count += world.getSpeakers().size();
+        }
+        return count;
     }
 
     public SpeakerMedia getMedia(String source) {
@@ -105,7 +257,22 @@ public class SpeakerModule {
     }
 
     public void unlistSpeaker(MappedLocation location) {
-        speakerMap.remove(location);
+        SpeakerWorld world = getWorld(location.getWorld());
+        if (world == null) return;
+        Speaker speaker = world.remove(location.getX(), location.getY(), location.getZ());
+        if (speaker == null) return;
+        if (voxelRayTracer != null) voxelRayTracer.forget(speaker.getId());
+    }
+
+    private synchronized SpeakerWorld getOrCreateWorld(String name) {
+        int id = worldIds.register(name);
+        SpeakerWorld[] worlds = speakerWorlds;
+        if (id < worlds.length && worlds[id] != null) return worlds[id];
+
+        SpeakerWorld[] grown = Arrays.copyOf(worlds, Math.max(worlds.length, id + 1));
+        grown[id] = new SpeakerWorld(id, name);
+        speakerWorlds = grown;
+        return grown[id];
     }
 
 }
@@ -0,0 +1,102 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.index;
+
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Uniform grid of chunk sized (16x16x16) cells holding all speakers of a single world.
+ * Range queries only visit the cells that overlap the query position plus the largest known speaker radius,
+ * instead of scanning every speaker on the server.
+ *
+ * Writes happen on the main thread (placing, loading, gc) while reads come from the async player handlers,
+ * so cells are concurrent and copy-on-write (they're small and read way more often than written to)
+ */
+public class SpeakerGrid {
+
+    private static final int CELL_SHIFT = 4;
+
+    private final Map<Long, List<Speaker>> cells = new ConcurrentHashMap<>();
+
+    // the largest radius of any speaker that ever got added, used to determine how many cells a query has to visit
+    @Getter private volatile int reach = 0;
+
+    public void add(Speaker speaker) {
+        MappedLocation location = speaker.getLocation();
+        long key = cellKey(location.getX() >> CELL_SHIFT, location.getY() >> CELL_SHIFT, location.getZ() >> CELL_SHIFT);
+        cells.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(speaker);
+        expandReach(speaker.getRadius());
+    }
+
+    public void remove(Speaker speaker) {
+        MappedLocation location = speaker.getLocation();
+        long key = cellKey(location.getX() >> CELL_SHIFT, location.getY() >> CELL_SHIFT, location.getZ() >> CELL_SHIFT);
+        cells.computeIfPresent(key, (k, cell) -> {
+            cell.remove(speaker);
+            return cell.isEmpty() ? null : cell;
+        });
+    }
+
+    /**
+     * Should be called whenever the radius of an indexed speaker changes, so queries keep looking far enough
+     *
+     * @param radius the new radius
+     */
+    public void expandReach(int radius) {
+        if (radius > reach) reach = radius;
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    /**
+     * Collect all speakers that have the given position within their radius
+     *
+     * @param x    query x
+     * @param y    query y
+     * @param z    query z
+     * @param into collection to add matching speakers to
+     */
+    public void collect(double x, double y, double z, Collection<Speaker> into) {
+        int reach = this.reach;
+        int minX = ((int) Math.floor(x) - reach) >> CELL_SHIFT;
+        int minY = ((int) Math.floor(y) - reach) >> CELL_SHIFT;
+        int minZ = ((int) Math.floor(z) - reach) >> CELL_SHIFT;
+        int maxX = ((int) Math.floor(x) + reach) >> CELL_SHIFT;
+        int maxY = ((int) Math.floor(y) + reach) >> CELL_SHIFT;
+        int maxZ = ((int) Math.floor(z) + reach) >> CELL_SHIFT;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<Speaker> cell = cells.get(cellKey(cx, cy, cz));
+                    if (cell == null) continue;
+
+                    for (Speaker speaker : cell) {
+                        MappedLocation location = speaker.getLocation();
+                        double dx = location.getX() - x;
+                        double dy = location.getY() - y;
+                        double dz = location.getZ() - z;
+                        double radius = speaker.getRadius();
+                        if ((dx * dx) + (dy * dy) + (dz * dz) <= radius * radius) {
+                            into.add(speaker);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // 22 bits for x and z, 20 for y. That's enough for the world border in cell coordinates
+    private static long cellKey(int cx, int cy, int cz) {
+        return ((long) (cx & 0x3FFFFF) << 42) | ((long) (cy & 0xFFFFF) << 22) | (long) (cz & 0x3FFFFF);
+    }
+
+}
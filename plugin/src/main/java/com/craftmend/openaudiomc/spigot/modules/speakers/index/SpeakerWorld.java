@@ -0,0 +1,96 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.index;
+
+import com.craftmend.openaudiomc.generic.utils.LongHashMap;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All speakers of a single world, keyed by their packed block position for exact lookups,
+ * spatially indexed for range lookups and grouped by chunk for validation when chunks load
+ */
+public class SpeakerWorld {
+
+    @Getter private final int id;
+    @Getter private final String name;
+    @Getter private final LongHashMap<Speaker> speakers = new LongHashMap<>();
+    @Getter private final SpeakerGrid grid = new SpeakerGrid();
+    private final LongHashMap<List<Speaker>> chunks = new LongHashMap<>();
+
+    public SpeakerWorld(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public Speaker get(int x, int y, int z) {
+        return speakers.get(pack(x, y, z));
+    }
+
+    /**
+     * Index a speaker, replacing any speaker that was on the same block
+     *
+     * @param speaker speaker
+     * @return the replaced speaker, or null
+     */
+    public synchronized Speaker add(Speaker speaker) {
+        MappedLocation location = speaker.getLocation();
+        Speaker replaced = speakers.put(pack(location.getX(), location.getY(), location.getZ()), speaker);
+        if (replaced != null) unindex(replaced);
+
+        grid.add(speaker);
+        long chunkKey = packChunk(location.getX() >> 4, location.getZ() >> 4);
+        List<Speaker> chunk = chunks.get(chunkKey);
+        if (chunk == null) {
+            chunk = new ArrayList<>(1);
+            chunks.put(chunkKey, chunk);
+        }
+        chunk.add(speaker);
+        return replaced;
+    }
+
+    /**
+     * @return the removed speaker, or null if there wasn't one on that block
+     */
+    public synchronized Speaker remove(int x, int y, int z) {
+        Speaker speaker = speakers.remove(pack(x, y, z));
+        if (speaker != null) unindex(speaker);
+        return speaker;
+    }
+
+    /**
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return a snapshot of the speakers in that chunk
+     */
+    public synchronized List<Speaker> getChunk(int chunkX, int chunkZ) {
+        List<Speaker> chunk = chunks.get(packChunk(chunkX, chunkZ));
+        if (chunk == null) return Collections.emptyList();
+        return new ArrayList<>(chunk);
+    }
+
+    private void unindex(Speaker speaker) {
+        grid.remove(speaker);
+        MappedLocation location = speaker.getLocation();
+        long chunkKey = packChunk(location.getX() >> 4, location.getZ() >> 4);
+        List<Speaker> chunk = chunks.get(chunkKey);
+        if (chunk == null) return;
+        chunk.remove(speaker);
+        if (chunk.isEmpty()) chunks.remove(chunkKey);
+    }
+
+    /**
+     * Packs a block position into a single long, 26 bits for x and z and 12 bits for y (same layout as minecraft itself)
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (long) (y & 0xFFF);
+    }
+
+    public static long packChunk(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.craftmend.openaudiomc.spigot.modules.speakers.interfaces;
 
 import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.Vector3;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 import org.bukkit.Location;
 
 public interface IRayTracer {
@@ -8,4 +9,9 @@ public interface IRayTracer {
     // count the obstructions (walls etc) between two locations
     int obstructionsBetweenLocations(Location start, Vector3 end);
 
+    // count the obstructions between a listener and a speaker, implementations may remember the result per speaker
+    default int obstructionsToSpeaker(Location start, Speaker speaker) {
+        return obstructionsBetweenLocations(start, Vector3.from(speaker.getLocation()));
+    }
+
 }
@@ -0,0 +1,61 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.listeners;
+
+import com.craftmend.openaudiomc.spigot.modules.speakers.tracing.ChunkSolidityCache;
+import lombok.AllArgsConstructor;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.List;
+
+@AllArgsConstructor
+public class ChunkSolidityListener implements Listener {
+
+    private ChunkSolidityCache chunkCache;
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        chunkCache.invalidate(event.getWorld().getName(), event.getChunk().getX(), event.getChunk().getZ());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunkCache.invalidateWorld(event.getWorld().getName());
+    }
+
+    private void invalidate(List<Block> blocks) {
+        for (Block block : blocks) invalidate(block);
+    }
+
+    private void invalidate(Block block) {
+        chunkCache.invalidate(block.getWorld().getName(), block.getX() >> 4, block.getZ() >> 4);
+    }
+
+}
@@ -3,7 +3,6 @@ package com.craftmend.openaudiomc.spigot.modules.speakers.listeners;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
 import com.craftmend.openaudiomc.spigot.modules.speakers.menu.SpeakerMenu;
-import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
 import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
 
 import com.craftmend.openaudiomc.spigot.modules.speakers.utils.SpeakerUtils;
@@ -27,7 +26,7 @@ public class SpeakerSelectListener implements Listener {
         if (OpenAudioMcSpigot.getInstance().getServerService().getVersion() == ServerVersion.MODERN && event.getHand() != EquipmentSlot.HAND) return;
         if (event.getAction() == Action.RIGHT_CLICK_BLOCK) {
             if (isAllowed(event.getPlayer())) {
-                Speaker speaker = speakerModule.getSpeaker(new MappedLocation(event.getClickedBlock().getLocation()));
+                Speaker speaker = speakerModule.getSpeaker(event.getClickedBlock());
                 if (speaker == null) {
                     return;
                 }
@@ -0,0 +1,20 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.listeners;
+
+import com.craftmend.openaudiomc.spigot.modules.speakers.tasks.SpeakerValidationTask;
+import lombok.AllArgsConstructor;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+@AllArgsConstructor
+public class SpeakerValidationListener implements Listener {
+
+    private SpeakerValidationTask validationTask;
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        validationTask.queueChunk(event.getWorld().getName(), event.getChunk().getX(), event.getChunk().getZ(), false);
+    }
+
+}
@@ -1,8 +1,6 @@
 package com.craftmend.openaudiomc.spigot.modules.speakers.menu;
 
 import com.craftmend.openaudiomc.OpenAudioMc;
-import com.craftmend.openaudiomc.generic.storage.interfaces.ConfigurationImplementation;
-import com.craftmend.openaudiomc.generic.storage.enums.StorageLocation;
 import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
 import com.craftmend.openaudiomc.spigot.modules.players.objects.SpigotConnection;
 import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
@@ -64,15 +62,12 @@ public class SpeakerMenu extends Menu {
                 settingItem.setLore(new String[]{setting.getDescription()});
 
                 settingItem.onClick((clicker, what) -> {
-                    ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
                     if (isEnabled) {
                         speaker.getExtraOptions().remove(setting);
-                        config.setString(StorageLocation.DATA_FILE, "speakers." + speaker.getId().toString() + ".options." + setting, "false");
                     } else {
                         speaker.getExtraOptions().add(setting);
-                        config.setString(StorageLocation.DATA_FILE, "speakers." + speaker.getId().toString() + ".options." + setting, "true");
                     }
-                    config.saveAll();
+                    OpenAudioMcSpigot.getInstance().getSpeakerModule().getStore().save(speaker);
                     new SpeakerMenu(speaker).openFor(clicker);
                 });
 
@@ -121,9 +116,7 @@ public class SpeakerMenu extends Menu {
             int safeRadius = speaker.getRadius() + 1;
             Collection<Entity> entities = bukkitSpeakerLocation.getWorld().getNearbyEntities(bukkitSpeakerLocation, safeRadius, safeRadius, safeRadius);
 
-            ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
-            config.setString(StorageLocation.DATA_FILE, "speakers." + speaker.getId().toString() + ".type", nextSelectableMode.toString());
-            config.saveAll();
+            OpenAudioMcSpigot.getInstance().getSpeakerModule().getStore().save(speaker);
 
             for (Entity entity : entities) {
                 // skip non-players
@@ -159,9 +152,8 @@ public class SpeakerMenu extends Menu {
                 )
                 .onClick((player, item) -> {
                     if (distance == speaker.getRadius()) return;
-                    ConfigurationImplementation config = OpenAudioMc.getInstance().getConfiguration();
-                    config.setInt(StorageLocation.DATA_FILE, "speakers." + speaker.getId().toString() + ".radius", distance);
-                    speaker.setRadius(distance);
+                    OpenAudioMcSpigot.getInstance().getSpeakerModule().updateRadius(speaker, distance);
+                    OpenAudioMcSpigot.getInstance().getSpeakerModule().getStore().save(speaker);
                     player.sendMessage(OpenAudioMc.getInstance().getCommandModule().getCommandPrefix() + "Updated speaker radius to " + distance);
                     new SpeakerMenu(speaker).openFor(player);
                 });
@@ -1,13 +0,0 @@
-package com.craftmend.openaudiomc.spigot.modules.speakers.objects;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
-@Data
-@AllArgsConstructor
-public class QueuedSpeaker {
-
-    private String worldName;
-    private String speakerId;
-
-}
@@ -0,0 +1,460 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.storage;
+
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
+import com.craftmend.openaudiomc.spigot.modules.speakers.enums.ExtraSpeakerOptions;
+import com.craftmend.openaudiomc.spigot.modules.speakers.enums.SpeakerType;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Persists speakers in a compact binary snapshot (speakers.dat) with an append only journal (speakers.journal).
+ *
+ * The snapshot is split in one partition per world, every partition has its own string table for sources, types
+ * and options, so every speaker is just a handful of numbers. Partitions are kept encoded until their world gets
+ * attached, so worlds that never load only cost their raw bytes, and they get encoded again when their world detaches.
+ *
+ * Changes get appended to the journal instead of rewriting everything, and the journal gets folded back into the
+ * snapshot when loading, when it grows too big and when the plugin shuts down.
+ * A journal that got cut off (crash during a write) is read up to the last complete entry. Files that can't be read
+ * get copied to a .corrupt backup before anything overwrites them.
+ */
+public class SpeakerStore {
+
+    private static final int MAGIC = 0x4F415350;
+    private static final int VERSION = 2;
+    // a single string table and list for every world, from before the snapshot got partitioned
+    private static final int LEGACY_VERSION = 1;
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    // fold the journal into the snapshot after this many changes
+    private static final int COMPACT_AFTER = 4096;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    // everything that's stored, including speakers in worlds that aren't loaded
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private DataOutputStream journal;
+    private int journalEntries = 0;
+    // compacting before the snapshot got read would wipe it
+    private boolean loaded = false;
+
+    public SpeakerStore(File directory) {
+        this.snapshotFile = new File(directory, "speakers.dat");
+        this.journalFile = new File(directory, "speakers.journal");
+    }
+
+    /**
+     * Read the snapshot (without decoding any partitions) and replay the journal
+     */
+    public synchronized void load() {
+        partitions.clear();
+        journalEntries = 0;
+
+        boolean intact = true;
+        try {
+            if (snapshotFile.exists()) readSnapshot();
+        } catch (IOException e) {
+            OpenAudioLogger.toConsole("Failed to read the speaker snapshot, only the speakers that could be read will be loaded.");
+            e.printStackTrace();
+            intact = false;
+        }
+
+        try {
+            if (journalFile.exists()) readJournal();
+        } catch (IOException e) {
+            OpenAudioLogger.toConsole("Failed to read the speaker journal, only the changes that could be read will be loaded.");
+            e.printStackTrace();
+            intact = false;
+        }
+
+        if (!intact) {
+            // compacting would overwrite them with whatever could be read, so keep a copy first
+            if (!backupCorruptFiles()) {
+                OpenAudioLogger.toConsole("Couldn't back up the speaker files, so they won't be rewritten. Changes only go to the journal for now.");
+                return;
+            }
+        }
+
+        // start with a clean journal
+        loaded = true;
+        compact();
+    }
+
+    /**
+     * Decode the partitions of multiple worlds in parallel, so attaching them later is instant
+     *
+     * @param worlds world names
+     */
+    public synchronized void decode(Collection<String> worlds) {
+        List<Partition> toDecode = worlds.stream()
+                .map(partitions::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        toDecode.parallelStream().forEach(Partition::decode);
+    }
+
+    /**
+     * @param world world name
+     * @return all stored speakers in a world, decoding its partition if needed
+     */
+    public synchronized Collection<Speaker> attach(String world) {
+        Partition partition = partitions.get(world);
+        if (partition == null) return Collections.emptyList();
+        return new ArrayList<>(partition.decode().values());
+    }
+
+    /**
+     * Encode the partition of a world again and release its speakers
+     *
+     * @param world world name
+     */
+    public synchronized void detach(String world) {
+        Partition partition = partitions.get(world);
+        if (partition != null) partition.release();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (Partition partition : partitions.values()) size += partition.size();
+        return size;
+    }
+
+    /**
+     * Store a new speaker, or the current state of a speaker that changed
+     */
+    public synchronized void save(Speaker speaker) {
+        Partition partition = partition(speaker.getLocation().getWorld());
+        partition.decode().put(speaker.getId(), speaker);
+        if (partition.failed) {
+            OpenAudioLogger.toConsole("Speaker " + speaker.getId() + " won't be stored, the stored speakers of " + partition.world + " couldn't be read.");
+        }
+        try {
+            DataOutputStream out = openJournal();
+            out.writeByte(OP_SAVE);
+            out.writeUTF(speaker.getLocation().getWorld());
+            writeSpeaker(out, speaker, null);
+            out.flush();
+        } catch (IOException e) {
+            OpenAudioLogger.toConsole("Failed to save speaker " + speaker.getId());
+            e.printStackTrace();
+        }
+        afterWrite();
+    }
+
+    public synchronized void delete(Speaker speaker) {
+        String world = speaker.getLocation().getWorld();
+        Partition partition = partitions.get(world);
+        if (partition == null || partition.decode().remove(speaker.getId()) == null) return;
+        try {
+            DataOutputStream out = openJournal();
+            out.writeByte(OP_DELETE);
+            out.writeUTF(world);
+            out.writeLong(speaker.getId().getMostSignificantBits());
+            out.writeLong(speaker.getId().getLeastSignificantBits());
+            out.flush();
+        } catch (IOException e) {
+            OpenAudioLogger.toConsole("Failed to delete speaker " + speaker.getId());
+            e.printStackTrace();
+        }
+        afterWrite();
+    }
+
+    /**
+     * Write everything to the snapshot and empty the journal
+     *
+     * @return true if the snapshot got written
+     */
+    public synchronized boolean compact() {
+        if (!loaded) return false;
+        closeJournal();
+        File temp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        try {
+            if (snapshotFile.getParentFile() != null) snapshotFile.getParentFile().mkdirs();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(partitions.size());
+                for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                    byte[] encoded = entry.getValue().encode();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+            Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            // only drop the journal when the snapshot that contains it is safely in place
+            Files.deleteIfExists(journalFile.toPath());
+            journalEntries = 0;
+            return true;
+        } catch (IOException e) {
+            OpenAudioLogger.toConsole("Failed to write the speaker snapshot, changes are kept in the journal.");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @return true if everything got written to the snapshot
+     */
+    public synchronized boolean close() {
+        return compact();
+    }
+
+    private boolean backupCorruptFiles() {
+        try {
+            for (File file : new File[]{snapshotFile, journalFile}) {
+                if (!file.exists()) continue;
+                File backup = new File(file.getParentFile(), file.getName() + ".corrupt");
+                Files.copy(file.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                OpenAudioLogger.toConsole("Kept a copy of the unreadable " + file.getName() + " as " + backup.getName());
+            }
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private Partition partition(String world) {
+        return partitions.computeIfAbsent(world, name -> new Partition(name, null, 0));
+    }
+
+    private void afterWrite() {
+        if (++journalEntries >= COMPACT_AFTER) compact();
+    }
+
+    private DataOutputStream openJournal() throws IOException {
+        if (journal == null) {
+            journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+        }
+        return journal;
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journal = null;
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            if (in.readInt() != MAGIC) throw new IOException("speakers.dat is not a speaker snapshot");
+            int version = in.readInt();
+            if (version == LEGACY_VERSION) {
+                readLegacySnapshot(in);
+                return;
+            }
+            if (version != VERSION) throw new IOException("Unsupported speaker snapshot version " + version);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String world = in.readUTF();
+                int size = in.readInt();
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                partitions.put(world, new Partition(world, encoded, size));
+            }
+        }
+    }
+
+    // decodes everything right away, it gets written in the partitioned format by the compact after loading
+    private void readLegacySnapshot(DataInputStream in) throws IOException {
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            String world = strings[in.readInt()];
+            int x = in.readInt();
+            int y = in.readInt();
+            int z = in.readInt();
+            String source = strings[in.readInt()];
+            int radius = in.readInt();
+            SpeakerType type = parseType(strings[in.readInt()]);
+            Set<ExtraSpeakerOptions> options = new HashSet<>();
+            int optionCount = in.readUnsignedByte();
+            for (int o = 0; o < optionCount; o++) addOption(options, strings[in.readInt()]);
+
+            partition(world).decode().put(id, new Speaker(source, id, radius, new MappedLocation(x, y, z, world), type, options));
+        }
+    }
+
+    private void readJournal() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                int op = in.read();
+                if (op == -1) return;
+
+                if (op == OP_SAVE) {
+                    String world = in.readUTF();
+                    Speaker speaker = readSpeaker(in, world, null);
+                    partition(world).decode().put(speaker.getId(), speaker);
+                } else if (op == OP_DELETE) {
+                    String world = in.readUTF();
+                    UUID id = new UUID(in.readLong(), in.readLong());
+                    Partition partition = partitions.get(world);
+                    if (partition != null) partition.decode().remove(id);
+                } else {
+                    throw new IOException("The speaker journal is corrupted after entry " + journalEntries);
+                }
+                journalEntries++;
+            }
+        } catch (EOFException e) {
+            OpenAudioLogger.toConsole("The last speaker journal entry was incomplete and got skipped.");
+        }
+    }
+
+    // strings are written inline when there's no string table (journal entries)
+    private static void writeSpeaker(DataOutputStream out, Speaker speaker, Map<String, Integer> strings) throws IOException {
+        MappedLocation location = speaker.getLocation();
+        out.writeLong(speaker.getId().getMostSignificantBits());
+        out.writeLong(speaker.getId().getLeastSignificantBits());
+        out.writeInt(location.getX());
+        out.writeInt(location.getY());
+        out.writeInt(location.getZ());
+        writeString(out, speaker.getSource(), strings);
+        out.writeInt(speaker.getRadius());
+        writeString(out, speaker.getSpeakerType().name(), strings);
+        out.writeByte(speaker.getExtraOptions().size());
+        for (ExtraSpeakerOptions option : speaker.getExtraOptions()) writeString(out, option.name(), strings);
+    }
+
+    private static Speaker readSpeaker(DataInputStream in, String world, String[] strings) throws IOException {
+        UUID id = new UUID(in.readLong(), in.readLong());
+        int x = in.readInt();
+        int y = in.readInt();
+        int z = in.readInt();
+        String source = readString(in, strings);
+        int radius = in.readInt();
+        SpeakerType type = parseType(readString(in, strings));
+        Set<ExtraSpeakerOptions> options = new HashSet<>();
+        int optionCount = in.readUnsignedByte();
+        for (int o = 0; o < optionCount; o++) addOption(options, readString(in, strings));
+        return new Speaker(source, id, radius, new MappedLocation(x, y, z, world), type, options);
+    }
+
+    private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings) throws IOException {
+        if (strings == null) {
+            out.writeUTF(value);
+        } else {
+            out.writeInt(strings.get(value));
+        }
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        return strings == null ? in.readUTF() : strings[in.readInt()];
+    }
+
+    private static SpeakerType parseType(String name) {
+        try {
+            return SpeakerType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return SpeakerModule.DEFAULT_SPEAKER_TYPE;
+        }
+    }
+
+    // options that got removed in later versions are just ignored
+    private static void addOption(Set<ExtraSpeakerOptions> options, String name) {
+        try {
+            options.add(ExtraSpeakerOptions.valueOf(name));
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    /**
+     * The speakers of a single world, either as the encoded bytes from the snapshot or decoded.
+     * A partition that can't be decoded keeps its original bytes, and those get written back as they are
+     */
+    private static final class Partition {
+
+        private final String world;
+        private byte[] encoded;
+        private int size;
+        private Map<UUID, Speaker> speakers;
+        private boolean failed = false;
+
+        private Partition(String world, byte[] encoded, int size) {
+            this.world = world;
+            this.encoded = encoded;
+            this.size = size;
+            if (encoded == null) speakers = new LinkedHashMap<>();
+        }
+
+        private int size() {
+            return speakers == null || failed ? size : speakers.size();
+        }
+
+        private Map<UUID, Speaker> decode() {
+            if (speakers != null) return speakers;
+            Map<UUID, Speaker> decoded = new LinkedHashMap<>();
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+                String[] strings = new String[in.readInt()];
+                for (int i = 0; i < strings.length; i++) strings[i] = in.readUTF();
+
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Speaker speaker = readSpeaker(in, world, strings);
+                    decoded.put(speaker.getId(), speaker);
+                }
+            } catch (IOException e) {
+                OpenAudioLogger.toConsole("Failed to read the stored speakers of " + world + ", only " + decoded.size() + " of them got loaded."
+                        + " The rest stays in speakers.dat, but changes to speakers in this world won't be stored.");
+                e.printStackTrace();
+                // use what could be read, but never write it back over the original
+                failed = true;
+                speakers = decoded;
+                return decoded;
+            }
+            speakers = decoded;
+            // the speakers might change from now on, so the bytes are outdated
+            encoded = null;
+            return decoded;
+        }
+
+        private byte[] encode() throws IOException {
+            if (speakers == null || failed) return encoded;
+
+            Map<String, Integer> strings = new LinkedHashMap<>();
+            for (Speaker speaker : speakers.values()) {
+                strings.putIfAbsent(speaker.getSource(), strings.size());
+                strings.putIfAbsent(speaker.getSpeakerType().name(), strings.size());
+                for (ExtraSpeakerOptions option : speaker.getExtraOptions()) strings.putIfAbsent(option.name(), strings.size());
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + speakers.size() * 48);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(strings.size());
+                for (String string : strings.keySet()) out.writeUTF(string);
+                out.writeInt(speakers.size());
+                for (Speaker speaker : speakers.values()) writeSpeaker(out, speaker, strings);
+            }
+            return bytes.toByteArray();
+        }
+
+        private void release() {
+            if (speakers == null || failed) return;
+            try {
+                encoded = encode();
+                size = speakers.size();
+                speakers = null;
+            } catch (IOException e) {
+                // keep it decoded, better than losing it
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
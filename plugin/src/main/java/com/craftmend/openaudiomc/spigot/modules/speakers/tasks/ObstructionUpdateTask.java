@@ -0,0 +1,44 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.tasks;
+
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.players.handlers.SpeakerHandler;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Re-traces the obstructions between players and their active speakers in the background.
+ * Players get queued by their SpeakerHandler when they moved far enough, and are served round robin with a small
+ * amount of traces per turn, so a single crowded area can't eat the budget of everyone else.
+ */
+public class ObstructionUpdateTask extends BukkitRunnable {
+
+    // the maximum amount of traces per tick, shared by all players
+    private static final int TRACES_PER_RUN = 256;
+    // the maximum amount of traces a single player gets before going back to the end of the queue
+    private static final int TRACES_PER_TURN = 8;
+
+    private final Queue<SpeakerHandler> queue = new ConcurrentLinkedQueue<>();
+
+    public ObstructionUpdateTask() {
+        runTaskTimerAsynchronously(OpenAudioMcSpigot.getInstance(), 1, 1);
+    }
+
+    public void queue(SpeakerHandler speakerHandler) {
+        queue.add(speakerHandler);
+    }
+
+    @Override
+    public void run() {
+        int budget = TRACES_PER_RUN;
+        while (budget > 0) {
+            SpeakerHandler speakerHandler = queue.poll();
+            if (speakerHandler == null) return;
+
+            // handlers that have work left put themselves back in the queue
+            budget -= speakerHandler.updateObstructions(Math.min(budget, TRACES_PER_TURN));
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.tasks;
+
+import com.craftmend.openaudiomc.generic.logging.OpenAudioLogger;
+import com.craftmend.openaudiomc.generic.storage.enums.GcStrategy;
+import com.craftmend.openaudiomc.generic.storage.enums.StorageKey;
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.speakers.SpeakerModule;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+import com.craftmend.openaudiomc.spigot.modules.speakers.utils.SpeakerUtils;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Checks if speakers still have their skull in the world, when the chunk they're in gets loaded.
+ * Speakers of a chunk only get queued once (unless forced), and the queue is handled on the main thread with a
+ * time budget per tick, so a burst of chunk loads can't cause lag spikes.
+ * Speakers that don't have their skull anymore get removed (see the gc-strategy option).
+ */
+public class SpeakerValidationTask extends BukkitRunnable {
+
+    // max time in nanoseconds spent validating per tick
+    private static final long BUDGET_PER_TICK = 2_000_000;
+    private static final int LOG_INTERVAL = 1200;
+
+    private final SpeakerModule speakerModule;
+    private final Queue<Speaker> queue = new ArrayDeque<>();
+    private int ticksSinceLog = 0;
+    private int toReport = 0;
+
+    public SpeakerValidationTask(SpeakerModule speakerModule) {
+        this.speakerModule = speakerModule;
+        runTaskTimer(OpenAudioMcSpigot.getInstance(), 1, 1);
+    }
+
+    /**
+     * Queue the speakers in a chunk that haven't been validated yet, should only be called from the main thread
+     *
+     * @param world  world name
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @param force  also queue speakers that were already validated
+     * @return the amount of queued speakers
+     */
+    public int queueChunk(String world, int chunkX, int chunkZ, boolean force) {
+        int queued = 0;
+        for (Speaker speaker : speakerModule.getSpeakersInChunk(world, chunkX, chunkZ)) {
+            if (speaker.isValidated() && !force) continue;
+            queue.add(speaker);
+            queued++;
+        }
+        return queued;
+    }
+
+    /**
+     * Queue the speakers of all chunks in a world that are currently loaded, for speakers that got loaded after
+     * their chunks did
+     */
+    public int queueLoadedChunks(World world, boolean force) {
+        int queued = 0;
+        for (Chunk chunk : world.getLoadedChunks()) {
+            queued += queueChunk(world.getName(), chunk.getX(), chunk.getZ(), force);
+        }
+        return queued;
+    }
+
+    @Override
+    public void run() {
+        logGarbage();
+        if (queue.isEmpty()) return;
+
+        long deadline = System.nanoTime() + BUDGET_PER_TICK;
+        Speaker speaker;
+        while (System.nanoTime() < deadline && (speaker = queue.poll()) != null) {
+            MappedLocation location = speaker.getLocation();
+
+            // removed or replaced since it got queued
+            if (speakerModule.getSpeaker(location) != speaker) continue;
+
+            // unloaded again, it'll be queued when it loads the next time
+            World world = OpenAudioMcSpigot.getInstance().getServer().getWorld(location.getWorld());
+            if (world == null || !world.isChunkLoaded(location.getX() >> 4, location.getZ() >> 4)) continue;
+
+            if (SpeakerUtils.isSpeakerSkull(location.getBlock())) {
+                speaker.setValidated(true);
+            } else {
+                removeGarbage(speaker);
+            }
+        }
+    }
+
+    private void removeGarbage(Speaker speaker) {
+        speakerModule.unlistSpeaker(speaker.getLocation());
+        toReport++;
+
+        GcStrategy strategy = GcStrategy.valueOf(StorageKey.SETTINGS_GC_STRATEGY.getString());
+        if (strategy == GcStrategy.DELETE) {
+            speakerModule.getStore().delete(speaker);
+        }
+    }
+
+    private void logGarbage() {
+        if (++ticksSinceLog < LOG_INTERVAL) return;
+        ticksSinceLog = 0;
+        if (toReport == 0) return;
+
+        OpenAudioLogger.toConsole("Found " + toReport + " corrupted speakers while validating loaded chunks. Removed them from the cache until the server restarts");
+        toReport = 0;
+    }
+
+}
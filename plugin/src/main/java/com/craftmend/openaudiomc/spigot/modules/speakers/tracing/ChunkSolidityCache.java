@@ -0,0 +1,120 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.tracing;
+
+import com.craftmend.openaudiomc.generic.utils.LongHashMap;
+import com.craftmend.openaudiomc.spigot.OpenAudioMcSpigot;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerWorld;
+import lombok.Value;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps solidity bitsets of chunks that are used by the ray tracer, so tracing never has to touch the world itself
+ * and can safely run async. Chunks that aren't cached yet get requested, and captured by a sync task during the next
+ * tick (only when they're loaded, tracing never loads chunks).
+ *
+ * Chunks get dropped when a block in them changes or when they unload, see ChunkSolidityListener
+ */
+public class ChunkSolidityCache {
+
+    // the amount of chunk snapshots that may be taken per tick
+    private static final int CAPTURES_PER_TICK = 8;
+
+    private final Map<String, LongHashMap<SolidChunk>> worlds = new ConcurrentHashMap<>();
+    private final Queue<ChunkRequest> requestQueue = new ConcurrentLinkedQueue<>();
+    private final Set<ChunkRequest> requested = ConcurrentHashMap.newKeySet();
+    private final AtomicLong clock = new AtomicLong();
+
+    public ChunkSolidityCache(OpenAudioMcSpigot openAudioMcSpigot) {
+        Bukkit.getScheduler().scheduleSyncRepeatingTask(openAudioMcSpigot, this::captureRequested, 1, 1);
+    }
+
+    /**
+     * @param world  world name
+     * @param chunkX chunk x
+     * @param chunkZ chunk z
+     * @return the cached chunk, or null if it isn't available (yet)
+     */
+    public SolidChunk get(String world, int chunkX, int chunkZ) {
+        LongHashMap<SolidChunk> chunks = worlds.get(world);
+        if (chunks == null) return null;
+        return chunks.get(key(chunkX, chunkZ));
+    }
+
+    /**
+     * Ask for a chunk to be captured during the next tick, requesting the same chunk multiple times is fine
+     */
+    public void request(String world, int chunkX, int chunkZ) {
+        ChunkRequest request = new ChunkRequest(world, chunkX, chunkZ);
+        if (requested.add(request)) requestQueue.add(request);
+    }
+
+    public void invalidate(String world, int chunkX, int chunkZ) {
+        LongHashMap<SolidChunk> chunks = worlds.get(world);
+        if (chunks != null) chunks.remove(key(chunkX, chunkZ));
+    }
+
+    public void invalidateWorld(String world) {
+        worlds.remove(world);
+    }
+
+    /**
+     * @return the current value of the clock, every chunk captured after this call will have a higher stamp
+     */
+    public long getClock() {
+        return clock.get();
+    }
+
+    /**
+     * Check if chunks are still the same ones that were there at a given point in time
+     *
+     * @param world name of the world
+     * @param stamp clock value from before the chunks were read
+     * @param keys  chunk keys, see key()
+     * @return false if any of the chunks got dropped or re-captured since
+     */
+    public boolean isUnchangedSince(String world, long stamp, long[] keys) {
+        LongHashMap<SolidChunk> chunks = worlds.get(world);
+        if (chunks == null) return false;
+        for (long key : keys) {
+            SolidChunk chunk = chunks.get(key);
+            if (chunk == null || chunk.getStamp() > stamp) return false;
+        }
+        return true;
+    }
+
+    private void captureRequested() {
+        for (int i = 0; i < CAPTURES_PER_TICK; i++) {
+            ChunkRequest request = requestQueue.poll();
+            if (request == null) return;
+            requested.remove(request);
+
+            World world = Bukkit.getWorld(request.getWorld());
+            if (world == null || !world.isChunkLoaded(request.getX(), request.getZ())) continue;
+
+            SolidChunk chunk = new SolidChunk(
+                    world.getChunkAt(request.getX(), request.getZ()).getChunkSnapshot(false, false, false),
+                    clock.incrementAndGet()
+            );
+            worlds.computeIfAbsent(request.getWorld(), name -> new LongHashMap<>()).put(key(request.getX(), request.getZ()), chunk);
+        }
+    }
+
+    public static long key(int chunkX, int chunkZ) {
+        return SpeakerWorld.packChunk(chunkX, chunkZ);
+    }
+
+    @Value
+    private static class ChunkRequest {
+        private String world;
+        private int x;
+        private int z;
+    }
+
+}
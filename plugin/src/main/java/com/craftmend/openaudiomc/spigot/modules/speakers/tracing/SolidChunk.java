@@ -0,0 +1,63 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.tracing;
+
+import lombok.Getter;
+import org.bukkit.ChunkSnapshot;
+
+/**
+ * Solidity of every block in a chunk, packed in a bitset (one bit per block, 8kb per chunk).
+ * The bitset gets built lazily from a snapshot on the first read, so the main thread only has to take the snapshot
+ * and the expensive part happens on whatever thread does the tracing.
+ */
+public class SolidChunk {
+
+    private static final int HEIGHT = 256;
+    private static final int SECTIONS = HEIGHT >> 4;
+
+    // value of the cache clock when this chunk got captured, used to tell if cached traces are still valid
+    @Getter private final long stamp;
+    private ChunkSnapshot snapshot;
+    private volatile long[] solid;
+
+    SolidChunk(ChunkSnapshot snapshot, long stamp) {
+        this.snapshot = snapshot;
+        this.stamp = stamp;
+    }
+
+    /**
+     * @param x x within the chunk (0-15)
+     * @param y world y, everything outside of the world is considered air
+     * @param z z within the chunk (0-15)
+     * @return if the block is solid
+     */
+    public boolean isSolid(int x, int y, int z) {
+        if (y < 0 || y >= HEIGHT) return false;
+        long[] bits = solid;
+        if (bits == null) bits = build();
+        int index = (y << 8) | (z << 4) | x;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private synchronized long[] build() {
+        if (solid != null) return solid;
+        long[] bits = new long[(HEIGHT << 8) >>> 6];
+
+        for (int section = 0; section < SECTIONS; section++) {
+            if (snapshot.isSectionEmpty(section)) continue;
+            for (int y = section << 4; y < (section + 1) << 4; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        if (!snapshot.getBlockType(x, y, z).isSolid()) continue;
+                        int index = (y << 8) | (z << 4) | x;
+                        bits[index >>> 6] |= 1L << index;
+                    }
+                }
+            }
+        }
+
+        solid = bits;
+        // the snapshot is way bigger than the bitset, no reason to keep it around
+        snapshot = null;
+        return bits;
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.craftmend.openaudiomc.spigot.modules.speakers.tracing;
+
+import com.craftmend.openaudiomc.generic.networking.payloads.client.speakers.objects.Vector3;
+import com.craftmend.openaudiomc.generic.utils.LongHashMap;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerWorld;
+import com.craftmend.openaudiomc.spigot.modules.speakers.interfaces.IRayTracer;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.MappedLocation;
+import com.craftmend.openaudiomc.spigot.modules.speakers.objects.Speaker;
+import lombok.AllArgsConstructor;
+import org.bukkit.Location;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact ray tracer that visits every block the line between two points passes through, in order
+ * (Amanatides & Woo voxel traversal), and counts how often it goes from air into a solid block.
+ *
+ * Blocks are read from the ChunkSolidityCache instead of the world, so this is safe to use async.
+ * Traces towards speakers are remembered per speaker and listener block, until a chunk along the way changes.
+ */
+public class VoxelRayTracer implements IRayTracer {
+
+    // remembered traces per speaker, the whole set gets dropped when it grows past this
+    private static final int TRACES_PER_SPEAKER = 1024;
+
+    private final ChunkSolidityCache chunkCache;
+    private final Map<UUID, LongHashMap<Trace>> traces = new ConcurrentHashMap<>();
+
+    public VoxelRayTracer(ChunkSolidityCache chunkCache) {
+        this.chunkCache = chunkCache;
+    }
+
+    @Override
+    public int obstructionsBetweenLocations(Location start, Vector3 end) {
+        return trace(start.getWorld().getName(), start.getX(), start.getY(), start.getZ(), end.getX(), end.getY(), end.getZ()).obstructions;
+    }
+
+    @Override
+    public int obstructionsToSpeaker(Location start, Speaker speaker) {
+        String world = start.getWorld().getName();
+        int blockX = start.getBlockX();
+        int blockY = start.getBlockY();
+        int blockZ = start.getBlockZ();
+        long key = SpeakerWorld.pack(blockX, blockY, blockZ);
+
+        LongHashMap<Trace> speakerTraces = traces.computeIfAbsent(speaker.getId(), id -> new LongHashMap<>());
+        Trace known = speakerTraces.get(key);
+        if (known != null && chunkCache.isUnchangedSince(world, known.stamp, known.chunks)) {
+            return known.obstructions;
+        }
+
+        // trace between block centers, so every listener in the same block gets the same result
+        MappedLocation target = speaker.getLocation();
+        Trace trace = trace(world, blockX + 0.5, blockY + 0.5, blockZ + 0.5, target.getX() + 0.5, target.getY() + 0.5, target.getZ() + 0.5);
+
+        // traces that passed through chunks that weren't captured yet are guesses, and shouldn't be remembered
+        if (trace.complete) {
+            if (speakerTraces.size() >= TRACES_PER_SPEAKER) speakerTraces.clear();
+            speakerTraces.put(key, trace);
+        }
+        return trace.obstructions;
+    }
+
+    /**
+     * Forget all remembered traces of a speaker, should be called when the speaker gets removed
+     *
+     * @param speaker speaker id
+     */
+    public void forget(UUID speaker) {
+        traces.remove(speaker);
+    }
+
+    private Trace trace(String world, double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        long stamp = chunkCache.getClock();
+
+        int x = (int) Math.floor(fromX);
+        int y = (int) Math.floor(fromY);
+        int z = (int) Math.floor(fromZ);
+        int endX = (int) Math.floor(toX);
+        int endY = (int) Math.floor(toY);
+        int endZ = (int) Math.floor(toZ);
+
+        double dx = toX - fromX;
+        double dy = toY - fromY;
+        double dz = toZ - fromZ;
+        int stepX = Double.compare(dx, 0);
+        int stepY = Double.compare(dy, 0);
+        int stepZ = Double.compare(dz, 0);
+
+        // the ray goes from t=0 to t=1, delta is the t it takes to cross a full block on that axis
+        double deltaX = stepX == 0 ? Double.MAX_VALUE : Math.abs(1 / dx);
+        double deltaY = stepY == 0 ? Double.MAX_VALUE : Math.abs(1 / dy);
+        double deltaZ = stepZ == 0 ? Double.MAX_VALUE : Math.abs(1 / dz);
+        double nextX = stepX == 0 ? Double.MAX_VALUE : (stepX > 0 ? (x + 1 - fromX) : (fromX - x)) * deltaX;
+        double nextY = stepY == 0 ? Double.MAX_VALUE : (stepY > 0 ? (y + 1 - fromY) : (fromY - y)) * deltaY;
+        double nextZ = stepZ == 0 ? Double.MAX_VALUE : (stepZ > 0 ? (z + 1 - fromZ) : (fromZ - z)) * deltaZ;
+
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        // a straight line never enters the same chunk twice, so these are all distinct
+        long[] chunks = new long[4];
+        int chunkCount = 0;
+        chunks[chunkCount++] = ChunkSolidityCache.key(chunkX, chunkZ);
+        SolidChunk chunk = lookup(world, chunkX, chunkZ);
+        boolean complete = chunk != null;
+
+        // every step moves exactly one block along one axis, so this is the amount of blocks between the two points
+        int steps = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+        boolean wasSolid = false;
+        int obstructions = 0;
+
+        for (int i = 0; i < steps; i++) {
+            if (nextX < nextY && nextX < nextZ) {
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY < nextZ) {
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                z += stepZ;
+                nextZ += deltaZ;
+            }
+
+            // the target itself doesn't block
+            if (x == endX && y == endY && z == endZ) break;
+
+            if ((x >> 4) != chunkX || (z >> 4) != chunkZ) {
+                chunkX = x >> 4;
+                chunkZ = z >> 4;
+                if (chunkCount == chunks.length) chunks = Arrays.copyOf(chunks, chunkCount << 1);
+                chunks[chunkCount++] = ChunkSolidityCache.key(chunkX, chunkZ);
+                chunk = lookup(world, chunkX, chunkZ);
+                if (chunk == null) complete = false;
+            }
+
+            boolean isSolid = chunk != null && chunk.isSolid(x & 15, y, z & 15);
+            if (isSolid && !wasSolid) obstructions++;
+            wasSolid = isSolid;
+        }
+
+        return new Trace(obstructions, complete, stamp, Arrays.copyOf(chunks, chunkCount));
+    }
+
+    private SolidChunk lookup(String world, int chunkX, int chunkZ) {
+        SolidChunk chunk = chunkCache.get(world, chunkX, chunkZ);
+        if (chunk == null) chunkCache.request(world, chunkX, chunkZ);
+        return chunk;
+    }
+
+    @AllArgsConstructor
+    private static final class Trace {
+        private final int obstructions;
+        private final boolean complete;
+        private final long stamp;
+        // every chunk the trace passed through
+        private final long[] chunks;
+    }
+
+}
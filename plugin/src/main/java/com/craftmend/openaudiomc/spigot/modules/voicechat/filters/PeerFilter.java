@@ -43,7 +43,7 @@ public class PeerFilter extends Filter<ClientConnection, Player> {
                     if (!otherPlayer.getWorld().getName().equals(context.getWorld().getName())) return false;
 
                     // check if the players are within distance
-                    return otherPlayer.getLocation().distance(context.getLocation()) < maxDistance;
+                    return otherPlayer.getLocation().distanceSquared(context.getLocation()) < (double) maxDistance * maxDistance;
                 });
     }
 }
@@ -0,0 +1,144 @@
+package com.craftmend.openaudiomc.spigot.modules.voicechat.grid;
+
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
+import com.craftmend.openaudiomc.generic.player.SpigotPlayerAdapter;
+import com.craftmend.openaudiomc.generic.utils.LongHashMap;
+import com.craftmend.openaudiomc.spigot.modules.speakers.index.SpeakerWorld;
+import lombok.Getter;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+/**
+ * Uniform grid of all voice chat users, built from a single location snapshot per proximity pass.
+ * The cells are as large as the largest radius that gets queried, so everyone in range of a player is in one of the
+ * 27 cells around them, and only those get checked instead of every other player on the server.
+ *
+ * Applies the same rules as the default PeerFilter, but with squared distances.
+ */
+public class PeerGrid {
+
+    private final int cellSize;
+    private final Map<String, LongHashMap<List<Peer>>> worlds = new HashMap<>();
+    private final Map<ClientConnection, Peer> peers = new HashMap<>();
+
+    public PeerGrid(int cellSize, Collection<ClientConnection> clients) {
+        this.cellSize = Math.max(1, cellSize);
+
+        for (ClientConnection client : clients) {
+            if (!client.getClientRtcManager().isReady()) continue;
+            Player player = ((SpigotPlayerAdapter) client.getPlayer()).getPlayer();
+            Location location = player.getLocation();
+
+            Peer peer = new Peer(client, location.getWorld().getName(), location.getX(), location.getY(), location.getZ(), player.isDead());
+            peers.put(client, peer);
+            // dead players can't be heard, but they're still in the snapshot so they don't hear anyone either
+            if (peer.dead) continue;
+
+            LongHashMap<List<Peer>> cells = worlds.computeIfAbsent(peer.world, world -> new LongHashMap<>());
+            long key = cellKey(cell(peer.x), cell(peer.y), cell(peer.z));
+            List<Peer> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>();
+                cells.put(key, cell);
+            }
+            cell.add(peer);
+        }
+    }
+
+    /**
+     * @param client client
+     * @return where the client was when the grid got built, or null if the client isn't ready for voice chat
+     */
+    public Peer getPeer(ClientConnection client) {
+        return peers.get(client);
+    }
+
+    /**
+     * @param client client that's looking for peers
+     * @param radius radius, can't be larger than the cell size
+     * @return all clients that are in range of the client
+     */
+    public Set<ClientConnection> findPeers(ClientConnection client, double radius) {
+        if (radius > cellSize) throw new IllegalArgumentException("The radius can't be larger than the cell size");
+
+        Peer self = peers.get(client);
+        if (self == null || self.dead) return Collections.emptySet();
+
+        LongHashMap<List<Peer>> cells = worlds.get(self.world);
+        if (cells == null) return Collections.emptySet();
+
+        Set<ClientConnection> found = new HashSet<>();
+        double radiusSquared = radius * radius;
+        int cellX = cell(self.x), cellY = cell(self.y), cellZ = cell(self.z);
+        for (int x = cellX - 1; x <= cellX + 1; x++) {
+            for (int y = cellY - 1; y <= cellY + 1; y++) {
+                for (int z = cellZ - 1; z <= cellZ + 1; z++) {
+                    List<Peer> cell = cells.get(cellKey(x, y, z));
+                    if (cell == null) continue;
+
+                    for (Peer other : cell) {
+                        if (other != self && self.distanceSquared(other) < radiusSquared) found.add(other.client);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param client first client
+     * @param peer   second client
+     * @param radius radius
+     * @return true if both are alive, ready for voice chat, in the same world and within the radius of each other
+     */
+    public boolean isWithin(ClientConnection client, ClientConnection peer, double radius) {
+        Peer self = peers.get(client);
+        Peer other = peers.get(peer);
+        if (self == null || other == null || self.dead || other.dead) return false;
+        if (!self.world.equals(other.world)) return false;
+        return self.distanceSquared(other) < radius * radius;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int x, int y, int z) {
+        return SpeakerWorld.pack(x, y, z);
+    }
+
+    @Getter
+    public static final class Peer {
+        private final ClientConnection client;
+        private final String world;
+        private final double x, y, z;
+        private final boolean dead;
+
+        private Peer(ClientConnection client, String world, double x, double y, double z, boolean dead) {
+            this.client = client;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.dead = dead;
+        }
+
+        public double distanceSquared(Peer other) {
+            double dx = other.x - x, dy = other.y - y, dz = other.z - z;
+            return (dx * dx) + (dy * dy) + (dz * dz);
+        }
+
+        /**
+         * @param earlier   an earlier snapshot of the same client
+         * @param threshold distance in blocks
+         * @return true if the client moved further than the threshold, changed worlds or died/respawned since then
+         */
+        public boolean hasMovedFrom(Peer earlier, double threshold) {
+            if (dead != earlier.dead || !world.equals(earlier.world)) return true;
+            return distanceSquared(earlier) > threshold * threshold;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.craftmend.openaudiomc.spigot.modules.voicechat.grid;
+
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientRtcManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the voice links between players up to date, without re-evaluating every pair on every pass.
+ *
+ * Only players that moved more than MOVE_THRESHOLD since they were last evaluated (or changed worlds, died,
+ * respawned or just became ready) get checked, and only the links that actually changed are sent to the clients.
+ * Players link when they get closer than the voice chat radius, but only drop once they're further than the radius
+ * plus LEAVE_MARGIN, so a pair that hangs around the edge doesn't keep linking and dropping.
+ *
+ * The margin is larger than the distance a pair can drift without either of them getting evaluated, and every
+ * FULL_PASS_INTERVAL passes everyone gets checked anyway to catch anything that slipped through.
+ */
+public class ProximityGraph {
+
+    public static final double MOVE_THRESHOLD = 1;
+    public static final int LEAVE_MARGIN = 4;
+    public static final int FULL_PASS_INTERVAL = 10;
+
+    private final int joinRadius;
+    private final int leaveRadius;
+    // where every ready player was the last time they got evaluated
+    private Map<ClientConnection, PeerGrid.Peer> evaluated = new HashMap<>();
+    private int passes = 0;
+
+    public ProximityGraph(int radius) {
+        this.joinRadius = radius;
+        this.leaveRadius = radius + LEAVE_MARGIN;
+    }
+
+    public void update(Collection<ClientConnection> clients) {
+        PeerGrid grid = new PeerGrid(leaveRadius, clients);
+        boolean fullPass = passes++ % FULL_PASS_INTERVAL == 0;
+        Map<ClientConnection, PeerGrid.Peer> next = new HashMap<>();
+
+        for (ClientConnection client : clients) {
+            PeerGrid.Peer current = grid.getPeer(client);
+            // not ready, their links are dropped when they disconnect
+            if (current == null) continue;
+
+            PeerGrid.Peer last = evaluated.get(client);
+            if (!fullPass && last != null && !current.hasMovedFrom(last, MOVE_THRESHOLD)) {
+                // keep the old position, so small movements still add up
+                next.put(client, last);
+                continue;
+            }
+
+            next.put(client, current);
+            evaluate(client, grid);
+        }
+
+        evaluated = next;
+    }
+
+    private void evaluate(ClientConnection client, PeerGrid grid) {
+        ClientRtcManager rtcManager = client.getClientRtcManager();
+
+        // drop peers that went out of range, or aren't in the snapshot at all anymore
+        for (ClientConnection peer : rtcManager.getSubscribedPeers()) {
+            if (!grid.isWithin(client, peer, leaveRadius)) rtcManager.unlink(peer);
+        }
+
+        // and link with new ones
+        for (ClientConnection peer : grid.findPeers(client, joinRadius)) {
+            if (!rtcManager.getSubscriptions().contains(peer.getOwnerUUID())) rtcManager.linkTo(peer);
+        }
+    }
+
+}
@@ -1,42 +1,54 @@
 package com.craftmend.openaudiomc.spigot.modules.voicechat.tasks;
 
 import com.craftmend.openaudiomc.OpenAudioMc;
-import com.craftmend.openaudiomc.api.impl.event.events.PlayerLeaveVoiceProximityEvent;
-import com.craftmend.openaudiomc.api.impl.event.events.enums.VoiceEventCause;
-import com.craftmend.openaudiomc.api.interfaces.AudioApi;
 import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
-import com.craftmend.openaudiomc.generic.networking.packets.client.voice.PacketClientDropVoiceStream;
-import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceDropPayload;
 import com.craftmend.openaudiomc.generic.player.SpigotPlayerAdapter;
 import com.craftmend.openaudiomc.generic.utils.Filter;
-import lombok.AllArgsConstructor;
+import com.craftmend.openaudiomc.spigot.modules.voicechat.filters.PeerFilter;
+import com.craftmend.openaudiomc.spigot.modules.voicechat.grid.ProximityGraph;
 import lombok.Setter;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-@AllArgsConstructor
 public class PlayerProximityTicker implements Runnable {
 
     private int maxDistance;
     @Setter
     private Filter<ClientConnection, Player> filter;
+    private final ProximityGraph proximityGraph;
+
+    public PlayerProximityTicker(int maxDistance, Filter<ClientConnection, Player> filter) {
+        this.maxDistance = maxDistance;
+        this.filter = filter;
+        this.proximityGraph = new ProximityGraph(maxDistance);
+    }
 
     @Override
     public void run() {
-        for (ClientConnection client : OpenAudioMc.getInstance().getNetworkingService().getClients()) {
+        Collection<ClientConnection> clients = OpenAudioMc.getInstance().getNetworkingService().getClients();
+
+        // the default rules only need to look at what changed, custom filters from the api still get to see every client
+        if (filter instanceof PeerFilter) {
+            proximityGraph.update(clients);
+            return;
+        }
+
+        for (ClientConnection client : clients) {
             // am I valid? no? do nothing.
             if (!client.getClientRtcManager().isReady()) continue;
 
             Player player = ((SpigotPlayerAdapter) client.getPlayer()).getPlayer();
 
             // find clients in this world, in radius and that are connected with RTC
-            Set<ClientConnection> applicableClients = filter.wrap(
-                    OpenAudioMc.getInstance().getNetworkingService().getClients().stream(),
-                    player
-            ).collect(Collectors.toSet());
+            Set<ClientConnection> applicableClients = filter.wrap(clients.stream(), player).collect(Collectors.toSet());
+
+            Set<UUID> applicableIds = new HashSet<>();
+            for (ClientConnection applicable : applicableClients) applicableIds.add(applicable.getOwnerUUID());
 
             // find players that we don't have yet
             applicableClients
@@ -48,26 +60,9 @@ public class PlayerProximityTicker implements Runnable {
                     });
 
             // check if we have any peers that are no longer applicable
-            for (UUID uuid : client.getClientRtcManager().getSubscriptions()
-                    .stream()
-                    .filter(p -> p != client.getOwnerUUID())
-                    .filter(uuid -> !applicableClients.stream().anyMatch(apc -> apc.getOwnerUUID() == uuid))
-                    .collect(Collectors.toSet())) {
-
+            for (ClientConnection peer : client.getClientRtcManager().getSubscribedPeers()) {
                 // unsubscribe these
-                ClientConnection peer = OpenAudioMc.getInstance().getNetworkingService().getClient(uuid);
-
-                client.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(peer.getStreamKey())));
-                peer.sendPacket(new PacketClientDropVoiceStream(new ClientVoiceDropPayload(client.getStreamKey())));
-
-                peer.getClientRtcManager().getSubscriptions().remove(client.getOwnerUUID());
-                client.getClientRtcManager().getSubscriptions().remove(peer.getOwnerUUID());
-
-                AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(client, peer, VoiceEventCause.NORMAL));
-                AudioApi.getInstance().getEventDriver().fire(new PlayerLeaveVoiceProximityEvent(peer, client, VoiceEventCause.NORMAL));
-
-                client.getClientRtcManager().updateLocationWatcher();
-                peer.getClientRtcManager().updateLocationWatcher();
+                if (!applicableIds.contains(peer.getOwnerUUID())) client.getClientRtcManager().unlink(peer);
             }
         }
     }
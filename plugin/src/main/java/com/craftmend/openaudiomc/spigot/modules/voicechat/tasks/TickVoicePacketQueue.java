@@ -2,24 +2,30 @@ package com.craftmend.openaudiomc.spigot.modules.voicechat.tasks;
 
 import com.craftmend.openaudiomc.OpenAudioMc;
 import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientConnection;
+import com.craftmend.openaudiomc.generic.networking.client.objects.player.ClientRtcLocationUpdate;
 import com.craftmend.openaudiomc.generic.networking.packets.client.voice.PacketClientUpdateVoiceLocations;
 import com.craftmend.openaudiomc.generic.networking.payloads.client.voice.ClientVoiceUpdatePeerLocationsPayload;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 public class TickVoicePacketQueue implements Runnable {
 
+    // reused between clients and runs, only the set that goes into the packet is new
+    private final List<ClientRtcLocationUpdate> buffer = new ArrayList<>();
+
     @Override
     public void run() {
         for (ClientConnection client : OpenAudioMc.getInstance().getNetworkingService().getClients()) {
-            if (!client.getClientRtcManager().getLocationUpdateQueue().isEmpty()) {
-                client.sendPacket(new PacketClientUpdateVoiceLocations(
-                        new ClientVoiceUpdatePeerLocationsPayload(
-                                new HashSet<>(client.getClientRtcManager().getLocationUpdateQueue())
-                        )
-                ));
-                client.getClientRtcManager().getLocationUpdateQueue().clear();
-            }
+            buffer.clear();
+            // nothing moved (far enough) since the last run, so there's nothing to send
+            if (!client.getClientRtcManager().getLocationSlots().drain(buffer)) continue;
+
+            client.sendPacket(new PacketClientUpdateVoiceLocations(
+                    new ClientVoiceUpdatePeerLocationsPayload(new HashSet<>(buffer))
+            ));
         }
+        buffer.clear();
     }
 }
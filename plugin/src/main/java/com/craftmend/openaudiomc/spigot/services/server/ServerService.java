@@ -9,6 +9,8 @@ public class ServerService {
 
     @Getter
     private ServerVersion version;
+    @Getter
+    private final WorldIdRegistry worldIds = new WorldIdRegistry();
 
     public ServerService() {
         String versionString = Bukkit.getServer().getClass().getPackage().getName().replace(".", ",").split(",")[3].replace("v", "");;
@@ -0,0 +1,50 @@
+package com.craftmend.openaudiomc.spigot.services.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hands out small, stable int ids for world names, so per world data can live in plain arrays
+ * instead of being keyed (and hashed) by name on every lookup.
+ * Ids are never recycled while the plugin is running.
+ */
+public class WorldIdRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param world world name
+     * @return the id of the world, assigning a new one if this world hasn't been seen before
+     */
+    public synchronized int register(String world) {
+        Integer id = ids.get(world);
+        if (id != null) return id;
+        int assigned = names.size();
+        names.add(world);
+        ids.put(world, assigned);
+        return assigned;
+    }
+
+    /**
+     * @param world world name
+     * @return the id of the world, or UNKNOWN if it never got registered
+     */
+    public int getId(String world) {
+        Integer id = ids.get(world);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+}